@@ -23,6 +23,7 @@ import org.jboss.pnc.bacon.common.Constants;
 import org.jboss.pnc.bacon.common.SubCommandHelper;
 import org.jboss.pnc.bacon.config.Config;
 import org.jboss.pnc.bacon.pig.Pig;
+import org.jboss.pnc.bacon.pig.download.DownloadMetrics;
 import org.jboss.pnc.bacon.pnc.Pnc;
 import picocli.CommandLine;
 
@@ -66,7 +67,11 @@ public class App extends SubCommandHelper {
 
         initializeConfig();
         App app = new App(args);
-        app.execute();
+        try {
+            app.execute();
+        } finally {
+            DownloadMetrics.instance().logSummary();
+        }
     }
 
 
@@ -43,6 +43,7 @@ public class Config {
     private DaConfig da;
     private IndyConfig indy;
     private KeycloakConfig keycloak;
+    private PigConfig pig;
 
     private Map<String, Map<String, ?>> addOns;
 
@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.config;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Tuning of the http client PiG uses to download artifacts and deliverables
+ */
+@Data
+public class PigConfig {
+    private static final PigConfig defaults = new PigConfig();
+
+    /**
+     * max number of pooled connections, for all hosts together
+     */
+    private int downloadPoolSize = 50;
+    /**
+     * max number of pooled connections to a single host
+     */
+    private int downloadPoolSizePerHost = 20;
+    /**
+     * pooled connections idle for longer than this are closed
+     */
+    private int downloadIdleTimeoutSeconds = 30;
+    /**
+     * should batches of artifacts be downloaded with the non-blocking download client
+     */
+    private boolean nonBlockingDownloads = false;
+    /**
+     * number of I/O threads of the non-blocking download client
+     */
+    private int downloadIoThreads = 4;
+    /**
+     * max number of files downloaded in parallel
+     */
+    private int downloadConcurrency = 10;
+    /**
+     * max number of files downloaded in parallel from a single host
+     */
+    private int downloadConcurrencyPerHost = 5;
+    /**
+     * max number of attempts to download a file, interrupted downloads are resumed where possible
+     */
+    private int downloadAttempts = 4;
+    /**
+     * delay before the first retry of a failed download, doubled for each subsequent retry
+     */
+    private long downloadRetryBackoffMillis = 1000;
+    /**
+     * failed downloads are not retried once this much time has passed since the download started
+     */
+    private long downloadMaxTotalMinutes = 30;
+    /**
+     * number of parallel connections used to download large deliverables, such as the repository zip.
+     * 1 means a single connection
+     */
+    private int largeFileDownloadSegments = 1;
+    /**
+     * should downloaded artifacts be kept in a local cache, shared between runs
+     */
+    private boolean cacheEnabled = true;
+    /**
+     * location of the artifact cache, defaults to ~/.bacon/pig-cache
+     */
+    private String cacheDirectory;
+    /**
+     * least recently used artifacts are removed from the cache when it grows above this size
+     */
+    private long cacheMaxSizeMb = 10240;
+    /**
+     * max number of parsed poms kept in memory during a run
+     */
+    private int pomCacheSize = 2048;
+    /**
+     * should parsed poms also be stored in the cache directory, to avoid re-parsing unchanged poms in next runs
+     */
+    private boolean pomCacheOnDisk = false;
+    /**
+     * should resolved build configs be stored in the cache directory, to skip parsing unchanged build configs.
+     * Snapshots are deserialized with java serialization, so they are off unless enabled explicitly
+     */
+    private boolean configSnapshotsEnabled = false;
+    /**
+     * max number of build configurations created or updated in PNC in parallel
+     */
+    private int pncImportConcurrency = 8;
+
+    /**
+     * @return the configured cache directory or the default one
+     */
+    public Path resolveCacheDirectory() {
+        return cacheDirectory != null
+                ? Paths.get(cacheDirectory)
+                : Paths.get(System.getProperty("user.home"), ".bacon", "pig-cache");
+    }
+
+    /**
+     * @return the pig section of the bacon configuration or the defaults if the section is missing
+     */
+    public static PigConfig instance() {
+        Config config = Config.instance();
+        if (config == null || config.getPig() == null) {
+            return defaults;
+        }
+        return config.getPig();
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig;
+
+import org.jboss.pnc.bacon.common.SubCommandHelper;
+import org.jboss.pnc.bacon.pig.download.ArtifactCache;
+import picocli.CommandLine.Command;
+
+/**
+ * Maintenance of the local artifact cache shared by PiG runs
+ */
+@Command(name = "cache", mixinStandardHelpOptions = true,
+        description = "Local artifact cache maintenance")
+public class CacheMaintenance extends SubCommandHelper {
+
+    @Command(name = "stats", mixinStandardHelpOptions = true, description = "print the cache location and size")
+    public void stats() {
+        System.out.println(ArtifactCache.instance().stats());
+    }
+
+    @Command(name = "prune", mixinStandardHelpOptions = true,
+            description = "remove the least recently used artifacts above the configured cache size")
+    public void prune() {
+        ArtifactCache cache = ArtifactCache.instance();
+        cache.prune();
+        System.out.println(cache.stats());
+    }
+
+    @Command(name = "clear", mixinStandardHelpOptions = true, description = "remove all the cached artifacts")
+    public void clear() {
+        ArtifactCache cache = ArtifactCache.instance();
+        cache.clear();
+        System.out.println(cache.stats());
+    }
+}
@@ -17,26 +17,28 @@
  */
 package org.jboss.pnc.bacon.pig;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.config.RequestConfig;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.conn.ssl.NoopHostnameVerifier;
-import org.apache.http.conn.ssl.TrustAllStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.util.EntityUtils;
+import org.jboss.pnc.bacon.pig.download.Checksums;
+import org.jboss.pnc.bacon.pig.download.DownloadClients;
+import org.jboss.pnc.bacon.pig.download.DownloadMetrics;
+import org.jboss.pnc.bacon.pig.download.FailureType;
+import org.jboss.pnc.bacon.pig.download.HttpStatusException;
+import org.jboss.pnc.bacon.pig.download.ResumableDownload;
+import org.jboss.pnc.bacon.pig.download.RetryPolicy;
+import org.jboss.pnc.bacon.pig.download.SegmentedDownload;
+import org.jboss.pnc.bacon.pig.download.TransferMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.security.KeyManagementException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.util.function.Supplier;
+import java.util.List;
 
 /**
  * @author Michal Szynkiewicz, michal.l.szynkiewicz@gmail.com
@@ -49,65 +51,181 @@ public class FileDownloadUtils {
 
     private static final Logger log = LoggerFactory.getLogger(FileDownloadUtils.class);
 
-    private static final int CONNECTION_TIMEOUT = 300000;
+    public static Checksums downloadTo(URI downloadUrl, File targetPath) {
+        return downloadTo(downloadUrl, targetPath, 1, Checksums.NONE);
+    }
 
-    private static final int READ_TIMEOUT = 900000;
+    public static Checksums downloadTo(URI downloadUrl, File targetPath, int segments) {
+        return downloadTo(downloadUrl, targetPath, segments, Checksums.NONE);
+    }
 
-    private static final RequestConfig requestConfig;
+    /**
+     * Download the file, resuming it after transient failures.
+     * An interrupted download is kept in a {@code .part} file next to the target.
+     * <p>
+     * Checksums of the file are computed while it is written and compared with the expected ones.
+     *
+     * @param segments max number of parallel connections, 1 or less means single-stream download.
+     *                 Falls back to single-stream download if the server doesn't support range requests
+     * @param expected checksums published for the file, on mismatch the file is removed and the download fails
+     * @return checksums of the downloaded file
+     */
+    public static Checksums downloadTo(URI downloadUrl, File targetPath, int segments, Checksums expected) {
+        log.info("Downloading {} to {}", downloadUrl, targetPath);
 
-    private static final Supplier<CloseableHttpClient> safeHttpClient;
-    private static final Supplier<CloseableHttpClient> unsafeHttpClient;
+        TransferMetrics transfer = DownloadMetrics.instance().start(downloadUrl);
+        RetryPolicy retryPolicy = RetryPolicy.fromConfig();
+        Checksums checksums;
+        try {
+            checksums = segments > 1
+                    ? downloadSegmented(downloadUrl, targetPath, segments, retryPolicy, transfer)
+                    : downloadSingleStream(downloadUrl, targetPath, retryPolicy, transfer);
+            verify(downloadUrl, targetPath, checksums, expected);
+        } catch (RuntimeException e) {
+            transfer.failed(FailureType.of(e));
+            throw e;
+        }
+        transfer.finished();
 
-    static {
-        requestConfig = RequestConfig.copy(RequestConfig.DEFAULT)
-                .setConnectTimeout(CONNECTION_TIMEOUT)
-                .setSocketTimeout(READ_TIMEOUT)
-                .build();
-        safeHttpClient = () -> HttpClients.custom()
-                .setDefaultRequestConfig(requestConfig).build();
-        unsafeHttpClient = () -> {
-            try {
-                return HttpClients
-                        .custom()
-                        .setDefaultRequestConfig(requestConfig)
-                        .setSSLContext(new SSLContextBuilder().loadTrustMaterial(null, TrustAllStrategy.INSTANCE).build())
-                        .setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE)
-                        .build();
-            } catch (NoSuchAlgorithmException | KeyManagementException | KeyStoreException e) {
-                throw new RuntimeException("Failed to initialize unsafe http client for file downloads", e);
-            }
-        };
+        log.info("Downloaded {} to {} ({} bytes/s, {} retries)",
+                downloadUrl, targetPath, transfer.getBytesPerSecond(), transfer.getRetries());
+        DownloadClients.instance().logPoolStats();
+        return checksums;
     }
 
-    public static void downloadTo(URI downloadUrl, File targetPath) {
-        log.info("Downloading {} to {}", downloadUrl, targetPath);
+    /**
+     * Hosts that fail SSL certificate verification are remembered and all downloads from them
+     * go through the client that doesn't check certificates.
+     * Other failures are not worked around this way, they fail the download once the retries are exhausted.
+     */
+    private static Checksums downloadSingleStream(URI downloadUrl,
+                                                  File targetPath,
+                                                  RetryPolicy retryPolicy,
+                                                  TransferMetrics transfer) {
+        DownloadClients clients = DownloadClients.instance();
+        ResumableDownload download = new ResumableDownload(downloadUrl, targetPath);
+        String description = "download " + downloadUrl;
+        boolean trustAll = clients.requiresTrustAll(downloadUrl);
+        try {
+            return retryPolicy.execute(description, download::getBytesWritten,
+                    () -> download.attempt(clients.clientFor(downloadUrl), transfer));
+        } catch (IOException e) {
+            FailureType failureType = FailureType.of(e);
+            if (trustAll || failureType != FailureType.TLS) {
+                throw new RuntimeException("failed to download " + downloadUrl + " to " + targetPath.getAbsolutePath() +
+                        " (" + failureType + " failure)", e);
+            }
+        }
 
+        clients.markRequiresTrustAll(downloadUrl);
         try {
-            downloadWithClient(safeHttpClient, downloadUrl, targetPath);
-        } catch (Exception e) {
-            log.warn("Failed to download " + downloadUrl + ". Will reattempt without SSL certificate check");
-            try {
-                downloadWithClient(unsafeHttpClient, downloadUrl, targetPath);
-            } catch (Exception any) {
-                throw new RuntimeException("failed to download " + downloadUrl + " to " + targetPath.getAbsolutePath(), any);
+            return retryPolicy.execute(description, download::getBytesWritten,
+                    () -> download.attempt(clients.unsafe(), transfer));
+        } catch (IOException any) {
+            throw new RuntimeException("failed to download " + downloadUrl + " to " + targetPath.getAbsolutePath() +
+                    " (" + FailureType.of(any) + " failure)", any);
+        }
+    }
+
+    private static Checksums downloadSegmented(URI downloadUrl,
+                                               File targetPath,
+                                               int segments,
+                                               RetryPolicy retryPolicy,
+                                               TransferMetrics transfer) {
+        SegmentedDownload download = new SegmentedDownload(DownloadClients.instance().clientFor(downloadUrl),
+                downloadUrl, targetPath, segments, retryPolicy);
+        try {
+            if (download.isSupported()) {
+                return download.download(transfer);
             }
+            log.info("{} doesn't support range requests, downloading it in a single stream", downloadUrl);
+        } catch (IOException e) {
+            log.warn("Segmented download of {} failed, will download it in a single stream", downloadUrl, e);
         }
+        transfer.discardTransferred();
+        return downloadSingleStream(downloadUrl, targetPath, retryPolicy, transfer);
+    }
 
-        log.info("Downloaded {} to {}", downloadUrl, targetPath);
+    public interface StreamProcessor<T> {
+        T process(InputStream content) throws IOException;
     }
 
-    private static void downloadWithClient(Supplier<CloseableHttpClient> httpClientSupplier, URI downloadUrl, File targetPath) throws Exception {
-        try (CloseableHttpClient httpClient = httpClientSupplier.get()) {
-            HttpResponse response = httpClient.execute(new HttpGet(downloadUrl));
+    /**
+     * Process the content of the url as a stream, without storing it in a file.
+     * <p>
+     * An interrupted stream cannot be resumed, so the download is not retried.
+     * Hosts are subject to the same SSL certificate decisions as in {@link #downloadTo(URI, File)}.
+     *
+     * @param downloadUrl url of the content
+     * @param processor processor of the content, it may be invoked again if SSL certificate verification fails
+     * @return the result of the processor
+     */
+    public static <T> T process(URI downloadUrl, StreamProcessor<T> processor) {
+        log.info("Processing content of {}", downloadUrl);
+        DownloadClients clients = DownloadClients.instance();
+        TransferMetrics transfer = DownloadMetrics.instance().start(downloadUrl);
+        Throwable failure = null;
+        try {
+            try {
+                return process(clients.clientFor(downloadUrl), downloadUrl, processor, transfer);
+            } catch (IOException e) {
+                if (clients.requiresTrustAll(downloadUrl) || FailureType.of(e) != FailureType.TLS) {
+                    throw e;
+                }
+                clients.markRequiresTrustAll(downloadUrl);
+                return process(clients.unsafe(), downloadUrl, processor, transfer);
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw new RuntimeException("failed to process " + downloadUrl + " (" + FailureType.of(e) + " failure)", e);
+        } catch (RuntimeException | Error e) {
+            // e.g. the processor rejecting the content
+            failure = e;
+            throw e;
+        } finally {
+            if (failure == null) {
+                transfer.finished();
+            } else {
+                transfer.failed(FailureType.of(failure));
+            }
+        }
+    }
 
+    private static <T> T process(CloseableHttpClient client,
+                                 URI downloadUrl,
+                                 StreamProcessor<T> processor,
+                                 TransferMetrics transfer) throws IOException {
+        try (CloseableHttpResponse response = client.execute(new HttpGet(downloadUrl))) {
+            transfer.firstByte();
             int statusCode = response.getStatusLine().getStatusCode();
             if (statusCode < 200 || statusCode > 299) {
-                throw new Exception("Invalid status code for download");
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new HttpStatusException(downloadUrl, statusCode);
+            }
+            try (InputStream content = new CountingInputStream(response.getEntity().getContent()) {
+                @Override
+                protected synchronized void afterRead(int n) {
+                    super.afterRead(n);
+                    if (n > 0) {
+                        transfer.transferred(n);
+                    }
+                }
+            }) {
+                return processor.process(content);
             }
-            try (InputStream input = response.getEntity().getContent();
-                 FileOutputStream output = new FileOutputStream(targetPath)) {
-                IOUtils.copy(input, output);
+        }
+    }
+
+    /**
+     * @throws PigException and removes the file if the checksums don't match the expected ones
+     */
+    public static void verify(URI downloadUrl, File targetPath, Checksums actual, Checksums expected) {
+        List<String> mismatches = actual.mismatches(expected);
+        if (!mismatches.isEmpty()) {
+            if (!targetPath.delete()) {
+                log.warn("Failed to remove {} with invalid checksums", targetPath);
             }
+            throw new PigException("Checksum mismatch for " + downloadUrl + ": " + String.join(", ", mismatches));
         }
     }
 }
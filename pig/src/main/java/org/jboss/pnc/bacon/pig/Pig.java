@@ -27,7 +27,8 @@ import picocli.CommandLine.Option;
  * <br>
  * Date: 12/13/18
  */
-@Command(name = "pig", mixinStandardHelpOptions = true)
+@Command(name = "pig", mixinStandardHelpOptions = true,
+        subcommands = {CacheMaintenance.class})
 public class Pig extends SubCommandHelper {
 
     @Command(name = "configure", mixinStandardHelpOptions = true)
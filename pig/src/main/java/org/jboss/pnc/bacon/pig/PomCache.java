@@ -0,0 +1,197 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.jboss.pnc.bacon.config.PigConfig;
+import org.jboss.pnc.bacon.pig.utils.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache of parsed poms, so that parents and BOMs referenced from many places are parsed once per run.
+ * <p>
+ * Entries are keyed by the canonical path, size and modification time of the file, so a pom modified
+ * during the run is re-parsed. Both {@link PomModel}s and DOM documents (used by the xpath based methods
+ * of {@link XmlUtils}) are cached, in separate LRU maps with a bounded number of entries.
+ * Cached documents are never handed out, each caller gets its own deep copy.
+ * <p>
+ * Optionally, pom models are also stored in the cache directory, keyed by sha-256 of the pom content,
+ * to avoid re-parsing unchanged poms in the next runs.
+ */
+public class PomCache {
+    private static final Logger log = LoggerFactory.getLogger(PomCache.class);
+
+    /**
+     * DOM documents are much bigger than pom models, only keep a few of them
+     */
+    private static final int MAX_DOCUMENTS = 32;
+
+    private static volatile PomCache instance;
+
+    private final Map<FileKey, PomModel> models;
+    private final Map<FileKey, Document> documents;
+    private final Path diskCache;
+
+    public PomCache(int maxModels, Path diskCache) {
+        this.models = lruMap(maxModels);
+        this.documents = lruMap(MAX_DOCUMENTS);
+        this.diskCache = diskCache;
+    }
+
+    public static PomCache instance() {
+        if (instance == null) {
+            synchronized (PomCache.class) {
+                if (instance == null) {
+                    PigConfig config = PigConfig.instance();
+                    Path diskCache = null;
+                    if (config.isCacheEnabled() && config.isPomCacheOnDisk()) {
+                        diskCache = config.resolveCacheDirectory().resolve("poms");
+                    }
+                    instance = new PomCache(config.getPomCacheSize(), diskCache);
+                }
+            }
+        }
+        return instance;
+    }
+
+    public PomModel getModel(File pom) {
+        return get(models, pom, this::readModel);
+    }
+
+    /**
+     * @return a copy of the cached document, owned by the caller
+     */
+    public Document getDocument(File xmlFile, Function<File, Document> parser) {
+        Document cached = get(documents, xmlFile, parser);
+        // DOM implementations are not thread-safe even for reads, and the caller may modify the document
+        synchronized (cached) {
+            return (Document) cached.cloneNode(true);
+        }
+    }
+
+    public synchronized void clear() {
+        models.clear();
+        documents.clear();
+    }
+
+    private <T> T get(Map<FileKey, T> cache, File file, Function<File, T> loader) {
+        FileKey key = FileKey.of(file);
+        synchronized (this) {
+            T cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // parsing happens outside of the lock, two threads may parse the same file, the result is the same
+        T loaded = loader.apply(file);
+        synchronized (this) {
+            cache.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    private PomModel readModel(File pom) {
+        if (diskCache == null) {
+            return PomReader.read(pom);
+        }
+
+        byte[] content;
+        try {
+            content = Files.readAllBytes(pom.toPath());
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading pom: " + pom.getAbsolutePath(), e);
+        }
+        Path cachedModel = diskCache.resolve(HashUtils.sha256(content));
+        if (Files.isRegularFile(cachedModel)) {
+            try (InputStream input = Files.newInputStream(cachedModel);
+                 ObjectInputStream objectInput = new ObjectInputStream(input)) {
+                return (PomModel) objectInput.readObject();
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                log.debug("Unable to read cached model of {}, re-parsing it", pom, e);
+            }
+        }
+
+        PomModel model;
+        try {
+            model = PomReader.read(new ByteArrayInputStream(content));
+        } catch (XMLStreamException e) {
+            throw new RuntimeException("Error reading pom: " + pom.getAbsolutePath(), e);
+        }
+        store(cachedModel, model);
+        return model;
+    }
+
+    private void store(Path cachedModel, PomModel model) {
+        try {
+            Files.createDirectories(diskCache);
+            Path temp = Files.createTempFile(diskCache, cachedModel.getFileName().toString(), ".tmp");
+            try (OutputStream output = Files.newOutputStream(temp);
+                 ObjectOutputStream objectOutput = new ObjectOutputStream(output)) {
+                objectOutput.writeObject(model);
+            }
+            Files.move(temp, cachedModel, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to store parsed pom in {}", cachedModel, e);
+        }
+    }
+
+    private static <T> Map<FileKey, T> lruMap(int maxSize) {
+        return new LinkedHashMap<FileKey, T>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FileKey, T> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @ToString
+    private static class FileKey {
+        private final String canonicalPath;
+        private final long size;
+        private final long lastModified;
+
+        private static FileKey of(File file) {
+            try {
+                return new FileKey(file.getCanonicalPath(), file.length(), file.lastModified());
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to resolve canonical path of " + file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.jboss.pnc.bacon.pig.data.GAV;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a pom that pig needs, as read by {@link PomReader}.
+ * <p>
+ * Values are stored exactly as they appear in the pom, i.e. property references are not resolved.
+ */
+@Getter
+@ToString
+public class PomModel implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    String groupId;
+    String artifactId;
+    String version;
+    String packaging;
+
+    String parentGroupId;
+    String parentArtifactId;
+    String parentVersion;
+
+    final Map<String, String> properties = new LinkedHashMap<>();
+    final List<Dependency> dependencies = new ArrayList<>();
+    final List<Dependency> dependencyManagement = new ArrayList<>();
+    final List<License> licenses = new ArrayList<>();
+
+    /**
+     * models are shared through {@link PomCache}, the collections are read-only for the users
+     */
+    public Map<String, String> getProperties() {
+        return Collections.unmodifiableMap(properties);
+    }
+
+    public List<Dependency> getDependencies() {
+        return Collections.unmodifiableList(dependencies);
+    }
+
+    public List<Dependency> getDependencyManagement() {
+        return Collections.unmodifiableList(dependencyManagement);
+    }
+
+    public List<License> getLicenses() {
+        return Collections.unmodifiableList(licenses);
+    }
+
+    /**
+     * @return group id of the project, inherited from the parent if not defined explicitly
+     */
+    public String getEffectiveGroupId() {
+        return groupId != null ? groupId : parentGroupId;
+    }
+
+    /**
+     * @return version of the project, inherited from the parent if not defined explicitly
+     */
+    public String getEffectiveVersion() {
+        return version != null ? version : parentVersion;
+    }
+
+    public String getEffectivePackaging() {
+        return packaging != null ? packaging : "jar";
+    }
+
+    public GAV getGav() {
+        return new GAV(getEffectiveGroupId(), artifactId, getEffectiveVersion(), getEffectivePackaging());
+    }
+
+    public boolean hasParent() {
+        return parentArtifactId != null;
+    }
+
+    @Getter
+    @ToString
+    public static class Dependency implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String groupId;
+        String artifactId;
+        String version;
+        String type;
+        String classifier;
+        String scope;
+        boolean optional;
+
+        public GAV toGav() {
+            return new GAV(groupId, artifactId, version, type != null ? type : "jar", classifier, scope);
+        }
+    }
+
+    @Getter
+    @ToString
+    public static class License implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String name;
+        String url;
+        String distribution;
+        String comments;
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Streaming (StAX) pom reader.
+ * <p>
+ * Reads coordinates, parent, properties, dependencies, dependency management and licenses
+ * in a single pass, without building a DOM. Everything else (build, profiles, reporting, etc.)
+ * is skipped without being materialized.
+ */
+public class PomReader {
+
+    // XMLInputFactory implementations are not guaranteed to be thread-safe
+    private static final ThreadLocal<XMLInputFactory> inputFactory = ThreadLocal.withInitial(PomReader::createFactory);
+
+    private PomReader() {
+    }
+
+    public static PomModel read(File pom) {
+        try (InputStream input = new BufferedInputStream(new FileInputStream(pom))) {
+            return read(input);
+        } catch (IOException | XMLStreamException e) {
+            throw new RuntimeException("Error reading pom: " + pom.getAbsolutePath(), e);
+        }
+    }
+
+    public static PomModel read(InputStream input) throws XMLStreamException {
+        XMLStreamReader reader = inputFactory.get().createXMLStreamReader(input);
+        try {
+            reader.nextTag();
+            if (!"project".equals(reader.getLocalName())) {
+                throw new XMLStreamException("Expected <project> as the root element, found <"
+                        + reader.getLocalName() + ">", reader.getLocation());
+            }
+            return readProject(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static PomModel readProject(XMLStreamReader reader) throws XMLStreamException {
+        PomModel pom = new PomModel();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "groupId":
+                    pom.groupId = text(reader);
+                    break;
+                case "artifactId":
+                    pom.artifactId = text(reader);
+                    break;
+                case "version":
+                    pom.version = text(reader);
+                    break;
+                case "packaging":
+                    pom.packaging = text(reader);
+                    break;
+                case "parent":
+                    readParent(reader, pom);
+                    break;
+                case "properties":
+                    readProperties(reader, pom);
+                    break;
+                case "dependencies":
+                    readDependencies(reader, pom.dependencies);
+                    break;
+                case "dependencyManagement":
+                    readDependencyManagement(reader, pom);
+                    break;
+                case "licenses":
+                    readLicenses(reader, pom);
+                    break;
+                default:
+                    skip(reader);
+            }
+        }
+        return pom;
+    }
+
+    private static void readParent(XMLStreamReader reader, PomModel pom) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "groupId":
+                    pom.parentGroupId = text(reader);
+                    break;
+                case "artifactId":
+                    pom.parentArtifactId = text(reader);
+                    break;
+                case "version":
+                    pom.parentVersion = text(reader);
+                    break;
+                default:
+                    skip(reader);
+            }
+        }
+    }
+
+    private static void readProperties(XMLStreamReader reader, PomModel pom) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            pom.properties.put(name, text(reader));
+        }
+    }
+
+    private static void readDependencyManagement(XMLStreamReader reader, PomModel pom) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("dependencies".equals(reader.getLocalName())) {
+                readDependencies(reader, pom.dependencyManagement);
+            } else {
+                skip(reader);
+            }
+        }
+    }
+
+    private static void readDependencies(XMLStreamReader reader, List<PomModel.Dependency> target)
+            throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("dependency".equals(reader.getLocalName())) {
+                target.add(readDependency(reader));
+            } else {
+                skip(reader);
+            }
+        }
+    }
+
+    private static PomModel.Dependency readDependency(XMLStreamReader reader) throws XMLStreamException {
+        PomModel.Dependency dependency = new PomModel.Dependency();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "groupId":
+                    dependency.groupId = text(reader);
+                    break;
+                case "artifactId":
+                    dependency.artifactId = text(reader);
+                    break;
+                case "version":
+                    dependency.version = text(reader);
+                    break;
+                case "type":
+                    dependency.type = text(reader);
+                    break;
+                case "classifier":
+                    dependency.classifier = text(reader);
+                    break;
+                case "scope":
+                    dependency.scope = text(reader);
+                    break;
+                case "optional":
+                    dependency.optional = Boolean.parseBoolean(text(reader));
+                    break;
+                default:
+                    skip(reader);
+            }
+        }
+        return dependency;
+    }
+
+    private static void readLicenses(XMLStreamReader reader, PomModel pom) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("license".equals(reader.getLocalName())) {
+                pom.licenses.add(readLicense(reader));
+            } else {
+                skip(reader);
+            }
+        }
+    }
+
+    private static PomModel.License readLicense(XMLStreamReader reader) throws XMLStreamException {
+        PomModel.License license = new PomModel.License();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "name":
+                    license.name = text(reader);
+                    break;
+                case "url":
+                    license.url = text(reader);
+                    break;
+                case "distribution":
+                    license.distribution = text(reader);
+                    break;
+                case "comments":
+                    license.comments = text(reader);
+                    break;
+                default:
+                    skip(reader);
+            }
+        }
+        return license;
+    }
+
+    private static String text(XMLStreamReader reader) throws XMLStreamException {
+        return reader.getElementText().trim();
+    }
+
+    /**
+     * skips the current element with all its content, leaves the reader on its end tag
+     */
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
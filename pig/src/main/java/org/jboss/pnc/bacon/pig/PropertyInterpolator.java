@@ -0,0 +1,123 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves <code>${...}</code> references in pom values.
+ * <p>
+ * Values are scanned once, referenced properties are resolved recursively (with cycle detection)
+ * and memoized, so an instance should be created once per document and reused for all its values.
+ * References to undefined properties are left untouched, as Maven does.
+ * Cyclic references are reported with a {@link PigException}, Maven rejects such poms too.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class PropertyInterpolator {
+    private static final String START = "${";
+    private static final char END = '}';
+
+    private final Map<String, String> properties;
+    private final Map<String, String> resolved = new HashMap<>();
+
+    public PropertyInterpolator(Map<String, String> properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Creates an interpolator for a pom, with <code>project.*</code> and <code>parent.*</code>
+     * properties available next to the ones defined in the pom
+     */
+    public static PropertyInterpolator forPom(PomModel pom) {
+        Map<String, String> properties = new HashMap<>(pom.getProperties());
+        putIfNotNull(properties, "project.groupId", pom.getEffectiveGroupId());
+        putIfNotNull(properties, "project.artifactId", pom.getArtifactId());
+        putIfNotNull(properties, "project.version", pom.getEffectiveVersion());
+        putIfNotNull(properties, "project.packaging", pom.getEffectivePackaging());
+        for (String prefix : new String[]{"project.parent.", "parent."}) {
+            putIfNotNull(properties, prefix + "groupId", pom.getParentGroupId());
+            putIfNotNull(properties, prefix + "artifactId", pom.getParentArtifactId());
+            putIfNotNull(properties, prefix + "version", pom.getParentVersion());
+        }
+        return new PropertyInterpolator(properties);
+    }
+
+    public String interpolate(String value) {
+        if (value == null || !value.contains(START)) {
+            return value;
+        }
+        return interpolate(value, new LinkedHashSet<>());
+    }
+
+    private String interpolate(String value, Set<String> resolving) {
+        int start = value.indexOf(START);
+        if (start < 0) {
+            return value;
+        }
+
+        StringBuilder result = new StringBuilder(value.length() + 16);
+        int position = 0;
+        while (start >= 0) {
+            int end = value.indexOf(END, start + START.length());
+            if (end < 0) {
+                break;
+            }
+            result.append(value, position, start);
+            String key = value.substring(start + START.length(), end);
+            String replacement = resolve(key, resolving);
+            if (replacement != null) {
+                result.append(replacement);
+            } else {
+                result.append(value, start, end + 1);
+            }
+            position = end + 1;
+            start = value.indexOf(START, position);
+        }
+        result.append(value, position, value.length());
+        return result.toString();
+    }
+
+    private String resolve(String key, Set<String> resolving) {
+        String value = resolved.get(key);
+        if (value != null) {
+            return value;
+        }
+        String rawValue = properties.get(key);
+        if (rawValue == null) {
+            return null;
+        }
+        if (!resolving.add(key)) {
+            throw new PigException("Cyclic property reference: "
+                    + String.join(" -> ", resolving) + " -> " + key);
+        }
+        value = interpolate(rawValue, resolving);
+        resolving.remove(key);
+        resolved.put(key, value);
+        return value;
+    }
+
+    private static void putIfNotNull(Map<String, String> properties, String key, String value) {
+        if (value != null) {
+            properties.putIfAbsent(key, value);
+        }
+    }
+}
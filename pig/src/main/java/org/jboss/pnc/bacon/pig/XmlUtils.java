@@ -31,6 +31,7 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
@@ -43,10 +44,15 @@ import javax.xml.xpath.XPathFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -59,76 +65,154 @@ import java.util.Set;
 public class XmlUtils {
     private static final Logger log = LoggerFactory.getLogger(XmlUtils.class);
 
+    private static final int COMPILED_EXPRESSIONS_PER_THREAD = 64;
+
+    // neither DocumentBuilder nor XPath(Expression) are thread-safe, hence one instance per thread
+    private static final ThreadLocal<DocumentBuilder> documentBuilder =
+            ThreadLocal.withInitial(XmlUtils::newDocumentBuilder);
+    private static final ThreadLocal<XPath> xpath =
+            ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
+    private static final ThreadLocal<Map<String, XPathExpression>> compiledExpressions =
+            ThreadLocal.withInitial(() -> new LinkedHashMap<String, XPathExpression>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+                    return size() > COMPILED_EXPRESSIONS_PER_THREAD;
+                }
+            });
+
     public static XmlToString extract(File xmlFile, String xpathLocator) {
         try {
             NodeList nodeList = extractNodes(xmlFile, xpathLocator);
             return new XmlToString(nodeList);
-        } catch (IOException | SAXException | ParserConfigurationException | XPathExpressionException e) {
+        } catch (XPathExpressionException e) {
             throw new RuntimeException("Error extracting dependencies from xmlFile: " + xmlFile, e);
         }
     }
 
-    private static NodeList extractNodes(File xmlFile, String xpathLocator) throws ParserConfigurationException, SAXException, IOException, XPathExpressionException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(xmlFile);
-        XPathFactory xPathfactory = XPathFactory.newInstance();
-        XPath xpath = xPathfactory.newXPath();
-        XPathExpression expr = xpath.compile(xpathLocator);
-        return (NodeList) expr.evaluate(doc, XPathConstants.NODESET);
+    private static NodeList extractNodes(File xmlFile, String xpathLocator) throws XPathExpressionException {
+        return evaluate(parse(xmlFile), xpathLocator);
     }
 
     public static List<Node> listNodes(File file, String xpathString) {
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(file);
-            XPathFactory xPathfactory = XPathFactory.newInstance();
-            XPath xpath = xPathfactory.newXPath();
-            XPathExpression expr = xpath.compile(xpathString);
-            NodeList nodeList = (NodeList) expr.evaluate(doc, XPathConstants.NODESET);
-
-            List<Node> resultList = new ArrayList<>();
-            for (int i = 0; i < nodeList.getLength(); i++) {
-                resultList.add(nodeList.item(i));
-            }
-            return resultList;
+            return toList(extractNodes(file, xpathString));
         } catch (Exception any) {
             throw new RuntimeException("Error searching for matches of " + xpathString + " in " + file.getAbsolutePath(), any);
         }
     }
 
+    /**
+     * Evaluates multiple xpath locators against a single parse of the file
+     *
+     * @return nodes matching each of the locators, in the order of the locators
+     */
+    public static Map<String, List<Node>> listNodes(File file, String... xpathStrings) {
+        Document document = parse(file);
+        Map<String, List<Node>> result = new LinkedHashMap<>();
+        for (String xpathString : xpathStrings) {
+            result.put(xpathString, listNodes(document, xpathString));
+        }
+        return result;
+    }
+
+    public static List<Node> listNodes(Document document, String xpathString) {
+        try {
+            return toList(evaluate(document, xpathString));
+        } catch (XPathExpressionException e) {
+            throw new RuntimeException("Error searching for matches of " + xpathString + " in " + document.getDocumentURI(), e);
+        }
+    }
+
+    /**
+     * Parses the file, or returns a copy of the cached document if the file has already been parsed.
+     */
+    public static Document parse(File xmlFile) {
+        return PomCache.instance().getDocument(xmlFile, XmlUtils::parseUncached);
+    }
+
+    private static Document parseUncached(File xmlFile) {
+        DocumentBuilder builder = documentBuilder.get();
+        try {
+            return builder.parse(xmlFile);
+        } catch (IOException | SAXException e) {
+            throw new RuntimeException("Error parsing xmlFile: " + xmlFile, e);
+        } finally {
+            builder.reset();
+        }
+    }
+
+    private static NodeList evaluate(Document document, String xpathLocator) throws XPathExpressionException {
+        return (NodeList) compile(xpathLocator).evaluate(document, XPathConstants.NODESET);
+    }
+
+    static XPathExpression compile(String xpathLocator) throws XPathExpressionException {
+        Map<String, XPathExpression> expressions = compiledExpressions.get();
+        XPathExpression expression = expressions.get(xpathLocator);
+        if (expression == null) {
+            expression = xpath.get().compile(xpathLocator);
+            expressions.put(xpathLocator, expression);
+        }
+        return expression;
+    }
+
+    private static List<Node> toList(NodeList nodeList) {
+        List<Node> resultList = new ArrayList<>(nodeList.getLength());
+        for (int i = 0; i < nodeList.getLength(); i++) {
+            resultList.add(nodeList.item(i));
+        }
+        return resultList;
+    }
+
+    private static DocumentBuilder newDocumentBuilder() {
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new RuntimeException("Unable to create xml document builder", e);
+        }
+    }
+
+    /**
+     * Interpolates the value with a new {@link PropertyInterpolator}, to read multiple values of a document
+     * create one with {@link PropertyInterpolator#forPom(PomModel)} and use
+     * {@link #getValue(Element, String, PropertyInterpolator)}
+     */
     public static String getValue(Element parent, String tagName, Map<String, String> properties) {
-        List<Element> children = getChildrenWithTagName(parent, tagName);
+        return getValue(parent, tagName, new PropertyInterpolator(properties));
+    }
+
+    /**
+     * @param properties interpolator of the document, reuse it for all the values of a document
+     *                   to benefit from memoized property resolution
+     */
+    public static String getValue(Element parent, String tagName, PropertyInterpolator properties) {
+        return getValue(ChildElements.of(parent), tagName, properties);
+    }
+
+    /**
+     * Variant of {@link #getValue(Element, String, PropertyInterpolator)} for reading multiple values
+     * of the same element without rescanning its children
+     */
+    public static String getValue(ChildElements parent, String tagName, PropertyInterpolator properties) {
+        List<Element> children = parent.get(tagName);
         int length = children.size();
-        if (children.size() > 1) {
+        if (length > 1) {
             throw new IllegalStateException("Too many elements with name '" + tagName + "'  in " +
-                    describe(parent) + ". Expected at most 1, got " + length);
+                    describe(parent.getParent()) + ". Expected at most 1, got " + length);
         }
 
         if (length == 0) {
             return null;
         }
 
-        Element child = (Element) children.get(0);
-        String value = child.getTextContent();
-
-        for (Map.Entry<String, String> entry : properties.entrySet()) {
-            value = value.replace("${" + entry.getKey() + "}", entry.getValue());
-        }
-
-        return value.trim();
+        Element child = children.get(0);
+        return properties.interpolate(child.getTextContent()).trim();
     }
 
-
     public static List<Element> getChildrenWithTagName(Element parent, String tagName) {
         List<Element> elements = new ArrayList<>();
-        NodeList descendants = parent.getElementsByTagName(tagName);
-        for (int i = 0; i < descendants.getLength(); i++) {
-            Node item = descendants.item(i);
-            if (item.getParentNode().isSameNode(parent)
-                    && item instanceof Element) {
-                elements.add((Element) item);
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element && tagName.equals(((Element) child).getTagName())) {
+                elements.add((Element) child);
             }
         }
         return elements;
@@ -173,27 +257,71 @@ public class XmlUtils {
     }
 
     public static Map<String, String> getProperties(File file) {
-        Map<String, String> result = new HashMap<>();
-        listNodes(file, "/project/properties/*")
-                .stream().filter(n -> n instanceof Element)
-                .map(n -> (Element) n)
-                .forEach(e -> result.put(e.getTagName(), e.getTextContent().trim()));
-        return result;
+        return new HashMap<>(PomCache.instance().getModel(file).getProperties());
+    }
+
+    /**
+     * Direct children of an element grouped by tag name, built with a single pass over the children
+     */
+    public static class ChildElements {
+        private final Element parent;
+        private final Map<String, List<Element>> childrenByTagName = new HashMap<>();
+
+        private ChildElements(Element parent) {
+            this.parent = parent;
+            for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof Element) {
+                    Element element = (Element) child;
+                    childrenByTagName.computeIfAbsent(element.getTagName(), name -> new ArrayList<>(1))
+                            .add(element);
+                }
+            }
+        }
+
+        public static ChildElements of(Element parent) {
+            return new ChildElements(parent);
+        }
+
+        public Element getParent() {
+            return parent;
+        }
+
+        public List<Element> get(String tagName) {
+            return childrenByTagName.getOrDefault(tagName, Collections.emptyList());
+        }
     }
 
     public static class XmlToString {
+        // looking up the factory implementation is costly, the factory itself is not guaranteed to be thread-safe
+        private static final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+
         private final NodeList nodeList;
         private final Set<String> expressionsToSkip = new HashSet<>();
+        private final Set<String> artifactsToSkip = new HashSet<>();
 
         public XmlToString(NodeList nodeList) {
             this.nodeList = nodeList;
         }
 
+        /**
+         * @deprecated matches the expressions against the serialized elements, use {@link #skippingArtifacts(String...)}
+         */
+        @Deprecated
         public XmlToString skipping(String... expression) {
             expressionsToSkip.addAll(Arrays.asList(expression));
             return this;
         }
 
+        /**
+         * Skip elements (e.g. dependencies) with the given groupId and artifactId
+         *
+         * @param groupIdArtifactIds artifacts to skip, in the form of groupId:artifactId
+         */
+        public XmlToString skippingArtifacts(String... groupIdArtifactIds) {
+            artifactsToSkip.addAll(Arrays.asList(groupIdArtifactIds));
+            return this;
+        }
+
         public String getContent() {
             if (nodeList.getLength() != 1) {
                 throw new RuntimeException("Expecting 1 element, found " + nodeList.getLength());
@@ -203,23 +331,73 @@ public class XmlUtils {
         }
 
         public String asString() throws TransformerException {
-            StringBuilder result = new StringBuilder();
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            StringWriter writer = new StringWriter();
+            writeTo(writer);
+            return writer.toString();
+        }
+
+        public void writeTo(File file) throws TransformerException, IOException {
+            try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                writeTo(writer);
+            }
+        }
+
+        /**
+         * Writes the non-skipped elements to the writer, each followed by a new line
+         */
+        public void writeTo(Writer writer) throws TransformerException {
+            Transformer transformer = newTransformer();
+            StreamResult result = new StreamResult(writer);
 
             for (int i = 0; i < nodeList.getLength(); ++i) {
-                StringWriter writer = new StringWriter();
-                StreamResult streamResult = new StreamResult(writer);
-                DOMSource source = new DOMSource();
-                source.setNode(nodeList.item(i));
-                transformer.transform(source, streamResult);
-                String element = writer.toString();
-                if (expressionsToSkip.stream().noneMatch(element::contains)) {
-                    result.append(element).append("\n");
+                Node node = nodeList.item(i);
+                if (isSkippedArtifact(node)) {
+                    continue;
+                }
+                if (expressionsToSkip.isEmpty()) {
+                    transformer.transform(new DOMSource(node), result);
+                    append(writer, "\n");
+                } else {
+                    StringWriter elementWriter = new StringWriter();
+                    transformer.transform(new DOMSource(node), new StreamResult(elementWriter));
+                    String element = elementWriter.toString();
+                    if (expressionsToSkip.stream().noneMatch(element::contains)) {
+                        append(writer, element + "\n");
+                    }
                 }
             }
+        }
+
+        private boolean isSkippedArtifact(Node node) {
+            if (artifactsToSkip.isEmpty() || !(node instanceof Element)) {
+                return false;
+            }
+            ChildElements children = ChildElements.of((Element) node);
+            String groupId = textOf(children, "groupId");
+            String artifactId = textOf(children, "artifactId");
+            return groupId != null && artifactId != null && artifactsToSkip.contains(groupId + ":" + artifactId);
+        }
 
-            return result.toString();
+        private static String textOf(ChildElements children, String tagName) {
+            List<Element> elements = children.get(tagName);
+            return elements.size() == 1 ? elements.get(0).getTextContent().trim() : null;
+        }
+
+        private static void append(Writer writer, String text) throws TransformerException {
+            try {
+                writer.write(text);
+            } catch (IOException e) {
+                throw new TransformerException("Failed to write xml", e);
+            }
+        }
+
+        private static Transformer newTransformer() throws TransformerConfigurationException {
+            Transformer transformer;
+            synchronized (transformerFactory) {
+                transformer = transformerFactory.newTransformer();
+            }
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            return transformer;
         }
     }
 }
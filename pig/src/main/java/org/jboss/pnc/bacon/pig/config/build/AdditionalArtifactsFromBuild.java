@@ -19,6 +19,7 @@ package org.jboss.pnc.bacon.pig.config.build;
 
 import lombok.Data;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
@@ -27,7 +28,7 @@ import java.util.List;
  * Date: 2/5/18
  */
 @Data
-public class AdditionalArtifactsFromBuild {
+public class AdditionalArtifactsFromBuild implements Serializable {
     private String from;
     private List<String> download;
 }
@@ -26,7 +26,7 @@ import org.jboss.pnc.dto.ProjectRef;
 import org.jboss.pnc.dto.SCMRepository;
 import org.jboss.pnc.enums.BuildType;
 
-import java.lang.reflect.Field;
+import java.io.Serializable;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
@@ -40,7 +40,7 @@ import static java.util.stream.Collectors.toMap;
  * Date: 11/28/17
  */
 @Data
-public class BuildConfig {
+public class BuildConfig implements Serializable {
     private String name;
     private String project;
     private String buildScript;
@@ -52,23 +52,37 @@ public class BuildConfig {
     private List<String> dependencies = new ArrayList<>();
     private Set<String> customPmeParameters = new TreeSet<>();
 
+    /**
+     * Fills the values missing in this config with the ones from defaults.
+     * Dependencies and custom PME parameters from defaults are added to the ones of this config, without duplicates.
+     * <p>
+     * The collections are copied first, YAML aliases can make multiple configs share a single list.
+     */
     public void setDefaults(BuildConfig defaults) {
-        try {
-            for (Field f : BuildConfig.class.getDeclaredFields()) {
-                f.setAccessible(true);
-                if (Collection.class.isAssignableFrom(f.getType())) {
-                    Collection<?> defaultValues = (Collection<?>) f.get(defaults);
-                    //noinspection unchecked,rawtypes
-                    ((Collection) f.get(this)).addAll(defaultValues);
-                } else {
-                    if (f.get(this) == null) {
-                        f.set(this, f.get(defaults));
-                    }
+        name = defaultIfNull(name, defaults.name);
+        project = defaultIfNull(project, defaults.project);
+        buildScript = defaultIfNull(buildScript, defaults.buildScript);
+        scmUrl = defaultIfNull(scmUrl, defaults.scmUrl);
+        externalScmUrl = defaultIfNull(externalScmUrl, defaults.externalScmUrl);
+        scmRevision = defaultIfNull(scmRevision, defaults.scmRevision);
+        description = defaultIfNull(description, defaults.description);
+        environmentId = defaultIfNull(environmentId, defaults.environmentId);
+
+        dependencies = new ArrayList<>(dependencies);
+        customPmeParameters = new TreeSet<>(customPmeParameters);
+        if (!defaults.dependencies.isEmpty()) {
+            Set<String> presentDependencies = new HashSet<>(dependencies);
+            for (String dependency : defaults.dependencies) {
+                if (presentDependencies.add(dependency)) {
+                    dependencies.add(dependency);
                 }
             }
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException("Unable to set default values for " + this + " from " + defaults);
         }
+        customPmeParameters.addAll(defaults.customPmeParameters);
+    }
+
+    private static <T> T defaultIfNull(T value, T defaultValue) {
+        return value != null ? value : defaultValue;
     }
 
     public static Map<String, BuildConfig> mapByName(List<BuildConfig> newConfigs) {
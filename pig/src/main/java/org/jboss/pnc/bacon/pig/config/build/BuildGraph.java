@@ -0,0 +1,202 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.config.build;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dependency graph of the build configs of a product.
+ * <p>
+ * Built in O(V+E): build configs are indexed by name, dependencies on build configs that are not defined
+ * are reported, and the configs are sorted to topological levels - configs of a level only depend on configs
+ * of the previous levels, so configs of a single level can be processed in parallel.
+ * If the configs depend on each other in a cycle, one of the cycles is reported.
+ */
+public class BuildGraph {
+    private final Map<String, BuildConfig> configsByName = new LinkedHashMap<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final Map<String, List<String>> dependents = new HashMap<>();
+    private final List<String> missingDependencies = new ArrayList<>();
+    private final List<List<BuildConfig>> levels = new ArrayList<>();
+    private List<String> cycle = Collections.emptyList();
+
+    private BuildGraph(List<BuildConfig> builds) {
+        for (BuildConfig build : builds) {
+            if (configsByName.putIfAbsent(build.getName(), build) == null) {
+                positions.put(build.getName(), positions.size());
+            }
+        }
+        Map<String, Integer> unresolvedDependencies = new HashMap<>();
+        for (BuildConfig build : configsByName.values()) {
+            int dependencyCount = 0;
+            for (String dependency : new LinkedHashSet<>(build.getDependencies())) {
+                if (configsByName.containsKey(dependency)) {
+                    dependents.computeIfAbsent(dependency, name -> new ArrayList<>()).add(build.getName());
+                    dependencyCount++;
+                } else {
+                    missingDependencies.add("Build config " + build.getName() + " depends on " + dependency
+                            + ", which is not defined");
+                }
+            }
+            unresolvedDependencies.put(build.getName(), dependencyCount);
+        }
+        sortToLevels(unresolvedDependencies);
+    }
+
+    public static BuildGraph of(List<BuildConfig> builds) {
+        return new BuildGraph(builds);
+    }
+
+    /**
+     * Kahn's algorithm, level by level, keeping the order of the configs from the build config file in each level
+     */
+    private void sortToLevels(Map<String, Integer> unresolvedDependencies) {
+        List<String> level = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : unresolvedDependencies.entrySet()) {
+            if (entry.getValue() == 0) {
+                level.add(entry.getKey());
+            }
+        }
+        level.sort(this::compareByPosition);
+
+        int sorted = 0;
+        while (!level.isEmpty()) {
+            List<BuildConfig> levelConfigs = new ArrayList<>(level.size());
+            List<String> nextLevel = new ArrayList<>();
+            for (String name : level) {
+                levelConfigs.add(configsByName.get(name));
+                for (String dependent : dependents.getOrDefault(name, Collections.emptyList())) {
+                    if (unresolvedDependencies.merge(dependent, -1, Integer::sum) == 0) {
+                        nextLevel.add(dependent);
+                    }
+                }
+            }
+            levels.add(levelConfigs);
+            sorted += level.size();
+            nextLevel.sort(this::compareByPosition);
+            level = nextLevel;
+        }
+
+        if (sorted < configsByName.size()) {
+            cycle = findCycle(unresolvedDependencies);
+        }
+    }
+
+    private int compareByPosition(String first, String second) {
+        return Integer.compare(positions.get(first), positions.get(second));
+    }
+
+    /**
+     * Every config left with unresolved dependencies depends on at least one other such config,
+     * following these dependencies has to end in a cycle
+     */
+    private List<String> findCycle(Map<String, Integer> unresolvedDependencies) {
+        String start = configsByName.keySet().stream()
+                .filter(name -> unresolvedDependencies.get(name) > 0)
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+
+        Map<String, Integer> visitedAt = new HashMap<>();
+        Deque<String> path = new ArrayDeque<>();
+        String current = start;
+        while (!visitedAt.containsKey(current)) {
+            visitedAt.put(current, path.size());
+            path.addLast(current);
+            current = unresolvedDependencyOf(current, unresolvedDependencies);
+        }
+
+        List<String> cycle = new ArrayList<>(new ArrayList<>(path).subList(visitedAt.get(current), path.size()));
+        cycle.add(current);
+        return cycle;
+    }
+
+    private String unresolvedDependencyOf(String name, Map<String, Integer> unresolvedDependencies) {
+        for (String dependency : configsByName.get(name).getDependencies()) {
+            Integer unresolved = unresolvedDependencies.get(dependency);
+            if (unresolved != null && unresolved > 0) {
+                return dependency;
+            }
+        }
+        throw new IllegalStateException("Build config " + name + " has no unresolved dependencies");
+    }
+
+    public BuildConfig get(String name) {
+        return configsByName.get(name);
+    }
+
+    public boolean contains(String name) {
+        return configsByName.containsKey(name);
+    }
+
+    /**
+     * @return names of the configs that directly depend on the config
+     */
+    public List<String> getDependents(String name) {
+        return dependents.getOrDefault(name, Collections.emptyList());
+    }
+
+    public List<String> getMissingDependencies() {
+        return missingDependencies;
+    }
+
+    public boolean hasCycle() {
+        return !cycle.isEmpty();
+    }
+
+    /**
+     * @return one of the dependency cycles, starting and ending with the same config, empty if there are no cycles
+     */
+    public List<String> getCycle() {
+        return cycle;
+    }
+
+    /**
+     * @return build configs grouped to levels, configs of each level only depend on configs from the previous levels
+     * @throws IllegalStateException if there is a dependency cycle
+     */
+    public List<List<BuildConfig>> getLevels() {
+        if (hasCycle()) {
+            throw new IllegalStateException(describeCycle());
+        }
+        return levels;
+    }
+
+    /**
+     * @return descriptions of all the problems found in the graph, empty if there are none
+     */
+    public List<String> getErrors() {
+        List<String> errors = new ArrayList<>(missingDependencies);
+        if (hasCycle()) {
+            errors.add(describeCycle());
+        }
+        return errors;
+    }
+
+    private String describeCycle() {
+        return "Build configs depend on each other in a cycle: " + String.join(" -> ", cycle);
+    }
+}
@@ -18,6 +18,7 @@
 package org.jboss.pnc.bacon.pig.config.build;
 
 import lombok.Data;
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.Yaml;
@@ -28,6 +29,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -50,7 +52,7 @@ import static org.apache.commons.lang3.StringUtils.join;
  * Date: 11/28/17
  */
 @Data
-public class Config {
+public class Config implements Serializable {
     private static final Logger log = LoggerFactory.getLogger(Config.class);
 
     private Product product;
@@ -64,7 +66,6 @@ public class Config {
     private String majorMinor;
     private String micro;
     private Map<String, Map<String, ?>> addons = new HashMap<>();
-    private static final Integer maxTries = 256;
 
     private void init() {
         String[] splittedVersion = version.split("\\.");
@@ -75,8 +76,10 @@ public class Config {
             micro = splittedVersion[2];
         }
 
-        builds.forEach(config -> config.setDefaults(defaultBuildParameters));
-        builds.forEach(BuildConfig::sanitizebuildScript);
+        builds.forEach(config -> {
+            config.setDefaults(defaultBuildParameters);
+            config.sanitizebuildScript();
+        });
         List<String> errors = validate();
         if (!errors.isEmpty()) {
             throw new RuntimeException("The build configuration file is invalid. Errors:\n" + join(errors, "\n"));
@@ -87,10 +90,17 @@ public class Config {
         List<String> errors = new ArrayList<>();
         checkForDuplicateConfigNames(errors);
         builds.forEach(b -> b.validate(errors));
-        // TODO!
+        errors.addAll(buildGraph().getErrors());
         return errors;
     }
 
+    /**
+     * @return dependency graph of the builds
+     */
+    public BuildGraph buildGraph() {
+        return BuildGraph.of(builds);
+    }
+
     private void checkForDuplicateConfigNames(List<String> errors) {
         List<String> configNames = builds.stream().map(BuildConfig::getName).collect(toList());
         Set<String> uniqueNames = new HashSet<>(configNames);
@@ -157,31 +167,8 @@ public class Config {
         }
 
         Map<String, String> variables = readVariables(contents, buildVarsOverrides);
-        Integer passes = 0;
-        // We also have to take into account variable used inside variables, just keep going over until
-        // they have all expanded, maxTries will be hit if one is left over after that many
-        List<String> matches;
-
-        while (!(matches = getAllMatches(contents, "\\{\\{.*}}")).isEmpty()) {
-            passes++;
-
-            for (Map.Entry<String, String> entry : variables.entrySet()) {
-                String name = "\\{\\{" + entry.getKey() + "}}";
-                String value = entry.getValue();
-                contents = contents.replaceAll(name, value);
-            }
-
-            if (passes > maxTries) {
-                StringBuilder leftOvers = new StringBuilder("");
-                Set<String> setString = new HashSet<String>(matches);
-
-                for (String temp : setString) {
-                    leftOvers.append(temp).append(" ");
-                }
-
-                throw new RuntimeException("No variable definition for [" + leftOvers.substring(0, leftOvers.length() - 1) + "]");
-            }
-        }
+        // variables used inside variables are resolved on the way, in a single pass over the file
+        contents = new VariableExpander(variables).expand(contents);
 
         InputStream stream = new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
 
@@ -201,13 +188,26 @@ public class Config {
     }
 
     public static Config load(InputStream configStream, String buildVarsOverrides) {
-        if (buildVarsOverrides == null) {
-            buildVarsOverrides = "";
+        String overrides = buildVarsOverrides == null ? "" : buildVarsOverrides;
+
+        byte[] content;
+        try {
+            content = IOUtils.toByteArray(configStream);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to load config file", e);
+        }
+
+        ConfigSnapshots snapshots = ConfigSnapshots.fromConfig();
+        if (snapshots == null) {
+            return parse(content, overrides);
         }
+        return snapshots.get(content, overrides, () -> parse(content, overrides));
+    }
 
+    private static Config parse(byte[] content, String buildVarsOverrides) {
         Yaml yaml = new Yaml(new Constructor(Config.class));
 
-        try (InputStream in = preProcess(configStream, buildVarsOverrides)) {
+        try (InputStream in = preProcess(new ByteArrayInputStream(content), buildVarsOverrides)) {
             Config config = (Config) yaml.load(in);
             config.init();
             return config;
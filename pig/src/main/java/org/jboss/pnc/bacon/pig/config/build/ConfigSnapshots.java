@@ -0,0 +1,220 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.config.build;
+
+import org.jboss.pnc.bacon.common.Constants;
+import org.jboss.pnc.bacon.config.PigConfig;
+import org.jboss.pnc.bacon.pig.utils.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshots of fully resolved build configs (variables expanded, defaults applied, validated).
+ * <p>
+ * A snapshot is keyed by the sha-256 of the build config content, the variable overrides and the bacon version,
+ * so any change to any of them results in parsing the config again. Snapshots of incompatible versions
+ * of the config classes are removed, other unreadable ones are ignored. Only the most recently used snapshots are kept.
+ * <p>
+ * Only the config classes, {@code java.util} collections, strings, boxed primitives and enums are deserialized,
+ * snapshots referring to any other class are removed.
+ */
+public class ConfigSnapshots {
+    private static final Logger log = LoggerFactory.getLogger(ConfigSnapshots.class);
+
+    private static final String SUFFIX = ".snapshot";
+    private static final int MAX_SNAPSHOTS = 32;
+
+    private final Path directory;
+
+    public ConfigSnapshots(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return snapshots in the pig cache directory or null if disabled
+     */
+    public static ConfigSnapshots fromConfig() {
+        PigConfig config = PigConfig.instance();
+        if (!config.isCacheEnabled() || !config.isConfigSnapshotsEnabled()) {
+            return null;
+        }
+        return new ConfigSnapshots(config.resolveCacheDirectory().resolve("config-snapshots"));
+    }
+
+    /**
+     * @param content content of the build config
+     * @param buildVarsOverrides variable overrides
+     * @param loader loads the config if there's no snapshot for it
+     */
+    public Config get(byte[] content, String buildVarsOverrides, Supplier<Config> loader) {
+        Path snapshot = directory.resolve(key(content, buildVarsOverrides) + SUFFIX);
+        Config config = read(snapshot);
+        if (config != null) {
+            log.debug("Using build config snapshot {}", snapshot);
+            return config;
+        }
+
+        config = loader.get();
+        write(snapshot, config);
+        return config;
+    }
+
+    private static String key(byte[] content, String buildVarsOverrides) {
+        return HashUtils.sha256(
+                (Constants.VERSION + '\0' + Constants.COMMIT_ID_SHA + '\0').getBytes(StandardCharsets.UTF_8),
+                (buildVarsOverrides + '\0').getBytes(StandardCharsets.UTF_8),
+                content);
+    }
+
+    private static Config read(Path snapshot) {
+        if (!Files.isRegularFile(snapshot)) {
+            return null;
+        }
+        try (InputStream input = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(snapshot)));
+             ObjectInputStream objectInput = new ConfigInputStream(input)) {
+            Config config = (Config) objectInput.readObject();
+            Files.setLastModifiedTime(snapshot, FileTime.fromMillis(System.currentTimeMillis()));
+            return config;
+        } catch (InvalidClassException | ClassNotFoundException | ClassCastException e) {
+            // written by an incompatible version of the config classes, it will never be readable
+            log.debug("Removing stale build config snapshot {}", snapshot, e);
+            delete(snapshot);
+            return null;
+        } catch (IOException e) {
+            log.debug("Unable to read build config snapshot {}, ignoring it", snapshot, e);
+            return null;
+        }
+    }
+
+    private static void delete(Path snapshot) {
+        try {
+            Files.deleteIfExists(snapshot);
+        } catch (IOException e) {
+            log.warn("Unable to remove build config snapshot {}", snapshot, e);
+        }
+    }
+
+    private void write(Path snapshot, Config config) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, snapshot.getFileName().toString(), ".tmp");
+            try (OutputStream output = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+                 ObjectOutputStream objectOutput = new ObjectOutputStream(output)) {
+                objectOutput.writeObject(config);
+            }
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            prune();
+        } catch (IOException e) {
+            log.warn("Unable to store build config snapshot in {}", directory, e);
+        }
+    }
+
+    private void prune() throws IOException {
+        List<Path> snapshots;
+        try (Stream<Path> files = Files.list(directory)) {
+            snapshots = files.filter(f -> f.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparing(ConfigSnapshots::lastModified).reversed())
+                    .collect(Collectors.toList());
+        }
+        for (Path old : snapshots.subList(Math.min(MAX_SNAPSHOTS, snapshots.size()), snapshots.size())) {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    /**
+     * rejects classes other than the ones build configs consist of
+     */
+    private static class ConfigInputStream extends ObjectInputStream {
+        private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+                String.class.getName(),
+                Boolean.class.getName(),
+                Byte.class.getName(),
+                Character.class.getName(),
+                Short.class.getName(),
+                Integer.class.getName(),
+                Long.class.getName(),
+                Float.class.getName(),
+                Double.class.getName(),
+                Number.class.getName(),
+                Enum.class.getName()));
+
+        private ConfigInputStream(InputStream input) throws IOException {
+            super(input);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass descriptor) throws IOException, ClassNotFoundException {
+            Class<?> type = super.resolveClass(descriptor);
+            if (!isAllowed(type)) {
+                throw new InvalidClassException(descriptor.getName(), "not allowed in build config snapshots");
+            }
+            return type;
+        }
+
+        private static boolean isAllowed(Class<?> type) {
+            if (type.isArray()) {
+                return isAllowed(type.getComponentType());
+            }
+            if (type.isPrimitive() || ALLOWED_CLASSES.contains(type.getName())) {
+                return true;
+            }
+            Package typePackage = type.getPackage();
+            String packageName = typePackage == null ? "" : typePackage.getName();
+            if (packageName.equals(Config.class.getPackage().getName())) {
+                return true;
+            }
+            return packageName.equals("java.util")
+                    && (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type));
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
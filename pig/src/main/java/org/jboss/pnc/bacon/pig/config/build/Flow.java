@@ -19,13 +19,15 @@ package org.jboss.pnc.bacon.pig.config.build;
 
 import lombok.Data;
 
+import java.io.Serializable;
+
 /**
  * @author Michal Szynkiewicz, michal.l.szynkiewicz@gmail.com
  * <br>
  * Date: 11/28/17
  */
 @Data
-public class Flow {
+public class Flow implements Serializable {
     private LicenseGenerationData licensesGeneration;
     private RepoGenerationData repositoryGeneration;
     private JavadocGenerationData javadocGeneration;
@@ -19,13 +19,15 @@ package org.jboss.pnc.bacon.pig.config.build;
 
 import lombok.Data;
 
+import java.io.Serializable;
+
 /**
  * @author Michal Szynkiewicz, michal.l.szynkiewicz@gmail.com
  * <br>
  * Date: 1/17/18
  */
 @Data
-public abstract class GenerationData<GenerationStrategyType> {
+public abstract class GenerationData<GenerationStrategyType> implements Serializable {
     private GenerationStrategyType strategy;
     private String sourceBuild;
     private String sourceArtifact;
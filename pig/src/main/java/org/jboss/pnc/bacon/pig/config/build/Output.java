@@ -19,6 +19,8 @@ package org.jboss.pnc.bacon.pig.config.build;
 
 import lombok.Data;
 
+import java.io.Serializable;
+
 /**
  *
  * @author Michal Szynkiewicz, michal.l.szynkiewicz@gmail.com
@@ -26,7 +28,7 @@ import lombok.Data;
  * Date: 11/28/17
  */
 @Data
-public class Output {
+public class Output implements Serializable {
     private String releaseFile;
     private String releaseDir;
 }
\ No newline at end of file
@@ -19,13 +19,15 @@ package org.jboss.pnc.bacon.pig.config.build;
 
 import lombok.Data;
 
+import java.io.Serializable;
+
 /**
  * @author Michal Szynkiewicz, michal.l.szynkiewicz@gmail.com
  * <br>
  * Date: 11/28/17
  */
 @Data
-public class Product {
+public class Product implements Serializable {
     private String name;
     private String abbreviation;
     private String stage;
@@ -0,0 +1,167 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.config.build;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Expands <code>{{name}}</code> references to variables defined in the build config (<code>#!name=value</code>)
+ * or passed as overrides.
+ * <p>
+ * The text is scanned once. Variables used in values of other variables are resolved on first use,
+ * recursively, and memoized. References can be nested, e.g. <code>{{version-{{flavor}}}}</code>, but have to be
+ * contained in a single line.
+ * <p>
+ * All references to undefined variables are reported at once, with the line (or the variable) they were found in.
+ * Cycles between variables are reported with the whole chain.
+ */
+public class VariableExpander {
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final Map<String, String> variables;
+    private final Map<String, String> resolved = new HashMap<>();
+    private final Set<String> resolving = new LinkedHashSet<>();
+    private final List<String> undefined = new ArrayList<>();
+
+    public VariableExpander(Map<String, String> variables) {
+        this.variables = variables;
+    }
+
+    /**
+     * @throws RuntimeException if the text references undefined variables or variables reference each other in a cycle
+     */
+    public String expand(String text) {
+        String result = expand(text, null);
+        if (!undefined.isEmpty()) {
+            throw new RuntimeException("No variable definition for " + String.join(", ", undefined));
+        }
+        return result;
+    }
+
+    /**
+     * @param variable name of the variable the text is a value of, null for the build config itself
+     */
+    private String expand(String text, String variable) {
+        int open = text.indexOf(OPEN);
+        if (open < 0) {
+            return text;
+        }
+
+        StringBuilder result = new StringBuilder(text.length());
+        int position = 0;
+        while (open >= 0) {
+            result.append(text, position, open);
+            Reference reference = readReference(text, open, variable);
+            if (reference == null) {
+                // not a reference, e.g. not closed in the same line
+                result.append(OPEN);
+                position = open + OPEN.length();
+            } else {
+                result.append(reference.value);
+                position = reference.end;
+            }
+            open = text.indexOf(OPEN, position);
+        }
+        result.append(text, position, text.length());
+        return result.toString();
+    }
+
+    /**
+     * @param open position of the opening braces
+     * @return the reference starting at the position or null if the braces are not closed in the same line
+     */
+    private Reference readReference(String text, int open, String variable) {
+        int lineEnd = text.indexOf('\n', open);
+        if (lineEnd < 0) {
+            lineEnd = text.length();
+        }
+
+        StringBuilder name = new StringBuilder();
+        int position = open + OPEN.length();
+        while (true) {
+            int close = text.indexOf(CLOSE, position);
+            if (close < 0 || close > lineEnd) {
+                return null;
+            }
+            int nested = text.indexOf(OPEN, position);
+            if (nested >= 0 && nested < close) {
+                name.append(text, position, nested);
+                Reference nestedReference = readReference(text, nested, variable);
+                if (nestedReference == null) {
+                    return null;
+                }
+                name.append(nestedReference.value);
+                position = nestedReference.end;
+            } else {
+                name.append(text, position, close);
+                return new Reference(resolve(name.toString(), text, open, variable), close + CLOSE.length());
+            }
+        }
+    }
+
+    private String resolve(String name, String text, int position, String referencingVariable) {
+        String value = resolved.get(name);
+        if (value != null) {
+            return value;
+        }
+
+        String definition = variables.get(name);
+        if (definition == null) {
+            String location = referencingVariable == null
+                    ? "line " + lineOf(text, position)
+                    : "definition of " + referencingVariable;
+            undefined.add(OPEN + name + CLOSE + " (" + location + ")");
+            // keep the reference, so that expansion can continue and all undefined variables get reported
+            return OPEN + name + CLOSE;
+        }
+
+        if (!resolving.add(name)) {
+            throw new RuntimeException("Cyclic variable definition: " + String.join(" -> ", resolving) + " -> " + name);
+        }
+        value = expand(definition, name);
+        resolving.remove(name);
+        resolved.put(name, value);
+        return value;
+    }
+
+    private static int lineOf(String text, int position) {
+        int line = 1;
+        for (int i = 0; i < position; i++) {
+            if (text.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return line;
+    }
+
+    private static class Reference {
+        private final String value;
+        private final int end;
+
+        private Reference(String value, int end) {
+            this.value = value;
+            this.end = end;
+        }
+    }
+}
@@ -20,6 +20,8 @@ package org.jboss.pnc.bacon.pig.data;
 
 import lombok.Getter;
 import org.jboss.pnc.bacon.pig.FileDownloadUtils;
+import org.jboss.pnc.bacon.pig.download.ArtifactCache;
+import org.jboss.pnc.bacon.pig.download.Checksums;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,11 +42,17 @@ public class Artifact {
     private final String gapv;
     private final String fileName;
     private final String downloadUrl;
+    private final String md5;
+    private final String sha1;
+    private final String sha256;
 
     public Artifact(Map<String, ?> map) {
         fileName = (String) map.get("filename");
         downloadUrl = (String) map.get("public_url");
         gapv = (String) map.get("identifier");
+        md5 = (String) map.get("md5");
+        sha1 = (String) map.get("sha1");
+        sha256 = (String) map.get("sha256");
     }
 
     public GAV toGAV() {
@@ -56,13 +64,35 @@ public class Artifact {
         return gapv;
     }
 
-    public void downloadTo(File downloadedZip) {
-        FileDownloadUtils.downloadTo(URI.create(downloadUrl), downloadedZip);
+    public Checksums getChecksums() {
+        return new Checksums(md5, sha1, sha256);
     }
 
-    public void downloadToDirectory(Path parentDirPath) {
+    public Checksums downloadTo(File downloadedZip) {
+        return downloadTo(downloadedZip, 1);
+    }
+
+    /**
+     * Copy the artifact from the local artifact cache or, if it's not there, download it and cache it.
+     * The download is verified against the checksums from PNC.
+     *
+     * @param segments number of parallel connections to use for the download
+     * @return checksums of the file
+     */
+    public Checksums downloadTo(File downloadedZip, int segments) {
+        ArtifactCache cache = ArtifactCache.instance();
+        if (cache.restore(this, downloadedZip)) {
+            return getChecksums();
+        }
+        Checksums checksums =
+                FileDownloadUtils.downloadTo(URI.create(downloadUrl), downloadedZip, segments, getChecksums());
+        cache.store(this, downloadedZip);
+        return checksums;
+    }
+
+    public Checksums downloadToDirectory(Path parentDirPath) {
         File targetPath = parentDirPath.resolve(fileName).toFile();
 
-        downloadTo(targetPath);
+        return downloadTo(targetPath);
     }
 }
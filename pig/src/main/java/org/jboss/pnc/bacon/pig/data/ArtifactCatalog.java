@@ -0,0 +1,199 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Index of all artifacts (built and dependencies) of a set of builds.
+ * <p>
+ * Built once, answers lookups by identifier, groupId:artifactId, file name and extension,
+ * prefix and glob queries and "which build produced the artifact" without rescanning the builds.
+ * Each artifact is indexed once, even if it is a dependency of many builds.
+ */
+public class ArtifactCatalog {
+    private final NavigableMap<String, Artifact> byIdentifier = new TreeMap<>();
+    private final NavigableMap<String, List<Artifact>> byFileName = new TreeMap<>();
+    private final Map<String, List<Artifact>> byGa = new HashMap<>();
+    private final Map<String, List<Artifact>> byExtension = new HashMap<>();
+    private final Map<String, PncBuild> producers = new HashMap<>();
+
+    private ArtifactCatalog() {
+    }
+
+    public static ArtifactCatalog of(Collection<PncBuild> builds) {
+        ArtifactCatalog catalog = new ArtifactCatalog();
+        // built artifacts first, so that the producing build is known for all of them
+        for (PncBuild build : builds) {
+            for (Artifact artifact : nullSafe(build.getBuiltArtifacts())) {
+                catalog.add(artifact);
+                catalog.producers.putIfAbsent(artifact.getGapv(), build);
+            }
+        }
+        for (PncBuild build : builds) {
+            for (Artifact artifact : nullSafe(build.getDependencyArtifacts())) {
+                catalog.add(artifact);
+            }
+        }
+        return catalog;
+    }
+
+    private void add(Artifact artifact) {
+        String identifier = artifact.getGapv();
+        if (byIdentifier.putIfAbsent(identifier, artifact) != null) {
+            return;
+        }
+        addTo(byGa, ga(identifier), artifact);
+        String fileName = artifact.getFileName();
+        if (fileName != null) {
+            addTo(byFileName, fileName, artifact);
+            addTo(byExtension, extension(fileName), artifact);
+        }
+    }
+
+    public int size() {
+        return byIdentifier.size();
+    }
+
+    public Optional<Artifact> byIdentifier(String identifier) {
+        return Optional.ofNullable(byIdentifier.get(identifier));
+    }
+
+    /**
+     * @param ga groupId:artifactId
+     */
+    public List<Artifact> byGa(String ga) {
+        return byGa.getOrDefault(ga, Collections.emptyList());
+    }
+
+    public List<Artifact> byFileName(String fileName) {
+        return byFileName.getOrDefault(fileName, Collections.emptyList());
+    }
+
+    /**
+     * @param extension file extension, without the leading dot, e.g. {@code zip}
+     */
+    public List<Artifact> byExtension(String extension) {
+        return byExtension.getOrDefault(extension, Collections.emptyList());
+    }
+
+    /**
+     * @return artifacts with identifiers starting with the prefix, e.g. {@code org.jboss.pnc:}, sorted by identifier
+     */
+    public List<Artifact> byIdentifierPrefix(String prefix) {
+        return new ArrayList<>(withPrefix(byIdentifier, prefix).values());
+    }
+
+    /**
+     * @param glob file name pattern, {@code *} matches any sequence of characters, {@code ?} a single character
+     */
+    public List<Artifact> byFileNameGlob(String glob) {
+        int firstWildcard = indexOfWildcard(glob, 0);
+        if (firstWildcard < 0) {
+            return byFileName(glob);
+        }
+        // *.ext
+        if (glob.startsWith("*.") && indexOfWildcard(glob, 1) < 0 && glob.indexOf('.', 2) < 0) {
+            return byExtension(glob.substring(2));
+        }
+
+        String prefix = glob.substring(0, firstWildcard);
+        ArtifactMatcher matcher = ArtifactMatcher.of(globToRegex(glob));
+        List<Artifact> result = new ArrayList<>();
+        for (Map.Entry<String, List<Artifact>> entry : withPrefix(byFileName, prefix).entrySet()) {
+            if (matcher.matches(entry.getKey())) {
+                result.addAll(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the build that produced the artifact, empty if the artifact was not built by any of the builds
+     */
+    public Optional<PncBuild> producedBy(String identifier) {
+        return Optional.ofNullable(producers.get(identifier));
+    }
+
+    public Optional<PncBuild> producedBy(Artifact artifact) {
+        return producedBy(artifact.getGapv());
+    }
+
+    private static <V> NavigableMap<String, V> withPrefix(NavigableMap<String, V> map, String prefix) {
+        if (prefix.isEmpty()) {
+            return map;
+        }
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static String ga(String identifier) {
+        int groupEnd = identifier.indexOf(':');
+        int artifactEnd = groupEnd < 0 ? -1 : identifier.indexOf(':', groupEnd + 1);
+        return artifactEnd < 0 ? identifier : identifier.substring(0, artifactEnd);
+    }
+
+    private static String extension(String fileName) {
+        return fileName.substring(fileName.lastIndexOf('.') + 1);
+    }
+
+    private static int indexOfWildcard(String glob, int from) {
+        for (int i = from; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 8);
+        int literalStart = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > literalStart) {
+                    regex.append(Pattern.quote(glob.substring(literalStart, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                literalStart = i + 1;
+            }
+        }
+        if (literalStart < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(literalStart)));
+        }
+        return regex.toString();
+    }
+
+    private static <V> void addTo(Map<String, List<V>> index, String key, V value) {
+        index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(value);
+    }
+
+    private static <T> Collection<T> nullSafe(Collection<T> collection) {
+        return collection == null ? Collections.emptyList() : collection;
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Matches artifact identifiers or file names against a set of regular expressions, compiled once.
+ * <p>
+ * Semantics are the same as of {@link String#matches(String)}, i.e. the whole value has to match.
+ * Patterns that are plain literals (possibly with escaped special characters) or literals followed by
+ * {@code .*} are matched with {@link String#equals(Object)} and {@link String#startsWith(String)},
+ * without the regex engine. Anything else, including anchors and inline flags, goes through {@link Pattern}.
+ */
+public class ArtifactMatcher {
+    private static final String SPECIAL_CHARACTERS = ".[]{}()*+?^$|\\";
+    private static final int MAX_CACHED_MATCHERS = 1024;
+
+    private static final ConcurrentMap<String, ArtifactMatcher> singlePatternMatchers = new ConcurrentHashMap<>();
+
+    private final List<String> patterns;
+    private final List<Rule> rules;
+
+    private ArtifactMatcher(Collection<String> patterns) {
+        this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+        this.rules = new ArrayList<>(patterns.size());
+        for (String pattern : patterns) {
+            rules.add(Rule.compile(pattern));
+        }
+    }
+
+    public static ArtifactMatcher of(Collection<String> patterns) {
+        return new ArtifactMatcher(patterns);
+    }
+
+    public static ArtifactMatcher of(String... patterns) {
+        return of(Arrays.asList(patterns));
+    }
+
+    /**
+     * @return a matcher for a single pattern, cached, for use in places that get the same pattern over and over
+     */
+    public static ArtifactMatcher forPattern(String pattern) {
+        ArtifactMatcher matcher = singlePatternMatchers.get(pattern);
+        if (matcher == null) {
+            if (singlePatternMatchers.size() >= MAX_CACHED_MATCHERS) {
+                singlePatternMatchers.clear();
+            }
+            matcher = of(pattern);
+            singlePatternMatchers.put(pattern, matcher);
+        }
+        return matcher;
+    }
+
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    public boolean matches(String value) {
+        for (Rule rule : rules) {
+            if (rule.matches(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return patterns matching the value, in the order they were given
+     */
+    public List<String> matchingPatterns(String value) {
+        List<String> result = new ArrayList<>(1);
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.get(i).matches(value)) {
+                result.add(patterns.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Groups the items by the patterns they match, with a single pass over the items.
+     *
+     * @param items items to group
+     * @param key function to get the matched value (e.g. file name) from an item
+     * @return items matching each of the patterns, every pattern is present in the result, in the order they were given
+     */
+    public <T> Map<String, List<T>> group(Collection<T> items, Function<T, String> key) {
+        List<List<T>> matches = new ArrayList<>(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            matches.add(new ArrayList<>());
+        }
+        for (T item : items) {
+            String value = key.apply(item);
+            for (int i = 0; i < rules.size(); i++) {
+                if (rules.get(i).matches(value)) {
+                    matches.get(i).add(item);
+                }
+            }
+        }
+
+        Map<String, List<T>> result = new LinkedHashMap<>();
+        for (int i = 0; i < rules.size(); i++) {
+            result.merge(patterns.get(i), matches.get(i), (first, second) -> first);
+        }
+        return result;
+    }
+
+    private interface Rule {
+        boolean matches(String value);
+
+        static Rule compile(String pattern) {
+            String prefix = pattern.endsWith(".*") && !pattern.endsWith("\\.*")
+                    ? literal(pattern.substring(0, pattern.length() - 2))
+                    : null;
+            if (prefix != null) {
+                return value -> value.startsWith(prefix) && !containsLineTerminator(value, prefix.length());
+            }
+            String literal = literal(pattern);
+            if (literal != null) {
+                return literal::equals;
+            }
+            Pattern regex = Pattern.compile(pattern);
+            return value -> regex.matcher(value).matches();
+        }
+
+        /**
+         * {@code .} doesn't match line terminators, so neither may the rest of a value matched by {@code prefix.*}
+         */
+        static boolean containsLineTerminator(String value, int from) {
+            for (int i = from; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the string the pattern matches if it doesn't use any regex constructs, null otherwise
+         */
+        static String literal(String pattern) {
+            StringBuilder literal = new StringBuilder(pattern.length());
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '\\') {
+                    if (i + 1 >= pattern.length()) {
+                        return null;
+                    }
+                    char escaped = pattern.charAt(++i);
+                    if (Character.isLetterOrDigit(escaped)) {
+                        // \d, \w, \Q etc.
+                        return null;
+                    }
+                    literal.append(escaped);
+                } else if (SPECIAL_CHARACTERS.indexOf(c) >= 0) {
+                    return null;
+                } else {
+                    literal.append(c);
+                }
+            }
+            return literal.toString();
+        }
+    }
+}
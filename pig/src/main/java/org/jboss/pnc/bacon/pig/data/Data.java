@@ -1,7 +1,17 @@
 package org.jboss.pnc.bacon.pig.data;
 
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.jboss.pnc.bacon.pig.download.DownloadEngine;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
+import static java.util.stream.Collectors.toList;
+
 /**
  * mstodo: Header
  *
@@ -9,8 +19,48 @@ import java.util.Map;
  * <br>
  * Date: 12/18/18
  */
+@Getter
+@Setter
 public class Data {
     private RepositoryData repo;
-    private Map<String, PncBuild> builds;
-    
+    private volatile Map<String, PncBuild> builds;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ArtifactCatalog catalog;
+
+    /**
+     * Replaces the builds and drops the catalog of the previous ones
+     */
+    public synchronized void setBuilds(Map<String, PncBuild> builds) {
+        this.builds = builds;
+        catalog = null;
+    }
+
+    /**
+     * @return index of all the artifacts of the builds, built on first use, empty if there are no builds yet
+     */
+    public synchronized ArtifactCatalog getCatalog() {
+        if (catalog == null) {
+            catalog = ArtifactCatalog.of(builds == null ? Collections.emptyList() : builds.values());
+        }
+        return catalog;
+    }
+
+    /**
+     * Download the built artifacts of all the builds to the directory, in parallel
+     */
+    public void downloadBuiltArtifacts(Path directory) {
+        DownloadEngine.downloadAll(getAllBuiltArtifacts(), directory);
+    }
+
+    public List<Artifact> getAllBuiltArtifacts() {
+        Map<String, PncBuild> builds = this.builds;
+        if (builds == null) {
+            return Collections.emptyList();
+        }
+        return builds.values()
+                .stream()
+                .flatMap(build -> build.getBuiltArtifacts().stream())
+                .collect(toList());
+    }
 }
@@ -18,10 +18,10 @@
 
 package org.jboss.pnc.bacon.pig.data;
 
-import lombok.EqualsAndHashCode;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.ToString;
-import org.apache.commons.io.FilenameUtils;
+import org.jboss.pnc.bacon.pig.PropertyInterpolator;
 import org.jboss.pnc.bacon.pig.XmlUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,44 +29,61 @@ import org.w3c.dom.Element;
 
 import java.util.Comparator;
 import java.util.Map;
+import java.util.Objects;
 
 /**
+ * Immutable maven coordinates.
+ * <p>
+ * Components are interned, identifiers ({@link #toGapvc()}, {@link #toFileName()}, etc.) and the hash code
+ * are computed on first use and cached. Use a {@link GAVFactory} to share instances across a run.
+ * <p>
+ * Equality only takes groupId, artifactId and version into account.
+ *
  * @author Michal Szynkiewicz, michal.l.szynkiewicz@gmail.com
  * <br>
  * Date: 6/19/17
  */
 @Getter
-@EqualsAndHashCode(exclude = {"packaging", "classifier", "scope"})
-@ToString
+@ToString(of = {"groupId", "artifactId", "version", "packaging", "classifier", "scope"})
 public class GAV {
     private static final Logger log = LoggerFactory.getLogger(GAV.class);
 
+    /**
+     * Orders by the {@link #toGapvc()} string, which is cached, so the order is stable and the comparison cheap
+     */
     public static final Comparator<GAV> gapvcComparator = Comparator.comparing(GAV::toGapvc);
 
     private final String packaging;
     private final String groupId;
     private final String artifactId;
     private final String version;
-    private String scope;
-    private String classifier;
+    private final String scope;
+    private final String classifier;
 
-    public GAV(String path) {
-        log.debug("parsing artifact path {}", path);
+    // lazily computed, racy single-check is fine as the values are deterministic
+    @Getter(AccessLevel.NONE)
+    private int hash;
+    @Getter(AccessLevel.NONE)
+    private String gav;
+    @Getter(AccessLevel.NONE)
+    private String gapv;
+    @Getter(AccessLevel.NONE)
+    private String gapvc;
+    @Getter(AccessLevel.NONE)
+    private String fileName;
+    @Getter(AccessLevel.NONE)
+    private String uri;
 
-        path = FilenameUtils.normalizeNoEndSeparator(path, true);
-
-        int versionEnd = path.lastIndexOf('/');
-        int artifactEnd = path.lastIndexOf('/', versionEnd - 1);
-        int groupEnd = path.lastIndexOf('/', artifactEnd - 1);
+    /**
+     * @param path path of the artifact in a maven repository, see {@link GAVPathParser}
+     */
+    public GAV(String path) {
+        this(GAVPathParser.parsed(path));
+    }
 
-        try {
-            packaging = path.substring(path.lastIndexOf('.') + 1);
-            version = path.substring(artifactEnd + 1, versionEnd);
-            artifactId = path.substring(groupEnd + 1, artifactEnd);
-            groupId = path.substring(0, groupEnd).replaceAll("/", ".");
-        } catch (StringIndexOutOfBoundsException parsingException) {
-            throw new RuntimeException("Unable to parse path " + path + " to artifact", parsingException);
-        }
+    private GAV(GAVPathParser parsedPath) {
+        this(parsedPath.groupId(), parsedPath.artifactId(), parsedPath.version(),
+                parsedPath.extension(), parsedPath.classifier(), null);
     }
 
     public GAV(String groupId, String artifactId, String version, String packaging) {
@@ -74,70 +91,91 @@ public class GAV {
     }
 
     public GAV(String groupId, String artifactId, String version, String packaging, String classifier) {
-        this.packaging = packaging;
-        this.groupId = groupId;
-        this.artifactId = artifactId;
-        this.version = version;
-        this.classifier = classifier;
+        this(groupId, artifactId, version, packaging, classifier, null);
+    }
+
+    public GAV(String groupId, String artifactId, String version, String packaging, String classifier, String scope) {
+        this.packaging = intern(packaging);
+        this.groupId = intern(groupId);
+        this.artifactId = intern(artifactId);
+        this.version = intern(version);
+        this.classifier = intern(classifier);
+        this.scope = intern(scope);
     }
 
     public static GAV fromXml(Element xml, Map<String, String> properties) {
-        String groupId = XmlUtils.getValue(xml, "groupId", properties);
-        String artifactId = XmlUtils.getValue(xml, "artifactId", properties);
-        String version = XmlUtils.getValue(xml, "version", properties);
-        String packaging = XmlUtils.getValue(xml, "packaging", properties);
-        String type = XmlUtils.getValue(xml, "type", properties);
-        String scope = XmlUtils.getValue(xml, "scope", properties);
-        String classifier = XmlUtils.getValue(xml, "classifier", properties);
+        return fromXml(xml, new PropertyInterpolator(properties));
+    }
+
+    public static GAV fromXml(Element xml, PropertyInterpolator properties) {
+        XmlUtils.ChildElements children = XmlUtils.ChildElements.of(xml);
+        String groupId = XmlUtils.getValue(children, "groupId", properties);
+        String artifactId = XmlUtils.getValue(children, "artifactId", properties);
+        String version = XmlUtils.getValue(children, "version", properties);
+        String packaging = XmlUtils.getValue(children, "packaging", properties);
+        String type = XmlUtils.getValue(children, "type", properties);
+        String scope = XmlUtils.getValue(children, "scope", properties);
+        String classifier = XmlUtils.getValue(children, "classifier", properties);
         if (packaging == null && type != null) {
             packaging = type;
         }
         if (packaging == null) {
             packaging = "jar";
         }
-        GAV gav = new GAV(groupId, artifactId, version, packaging, classifier);
-        gav.scope = scope;
-        return gav;
+        return new GAV(groupId, artifactId, version, packaging, classifier, scope);
     }
 
     public String toGav() {
-        return String.format("%s:%s:%s", groupId, artifactId, version);
+        String result = gav;
+        if (result == null) {
+            result = gav = groupId + ":" + artifactId + ":" + version;
+        }
+        return result;
     }
 
     public String toGapv() {
-        return String.format("%s:%s:%s:%s", groupId, artifactId, packaging, version);
+        String result = gapv;
+        if (result == null) {
+            result = gapv = groupId + ":" + artifactId + ":" + packaging + ":" + version;
+        }
+        return result;
     }
 
     public String toGapvc() {
-        return String.format("%s:%s:%s:%s:%s", groupId, artifactId, packaging, version, classifier);
+        String result = gapvc;
+        if (result == null) {
+            result = gapvc = toGapv() + ":" + classifier;
+        }
+        return result;
     }
 
     public String toVersionPath() {
-        return String.format("%s/%s/%s",
-                groupId.replace('.', '/'), artifactId, version);
+        return groupId.replace('.', '/') + "/" + artifactId + "/" + version;
     }
 
     public String toUri() {
-        return String.format("%s/%s",
-                toVersionPath(),
-                toFileName());
+        String result = uri;
+        if (result == null) {
+            result = uri = toVersionPath() + "/" + toFileName();
+        }
+        return result;
     }
 
     public String toFileName() {
-        if (classifier == null) {
-            return String.format("%s-%s.%s", artifactId, version, packaging);
-        } else {
-            return String.format("%s-%s-%s.%s", artifactId, version, classifier, packaging);
+        String result = fileName;
+        if (result == null) {
+            if (classifier == null) {
+                result = artifactId + "-" + version + "." + packaging;
+            } else {
+                result = artifactId + "-" + version + "-" + classifier + "." + packaging;
+            }
+            fileName = result;
         }
+        return result;
     }
 
     public String toPNCIdentifier() {
-        String result = String.format("%s:%s:%s:%s", groupId, artifactId, packaging, version);
-        if (classifier != null) {
-            result += ":";
-            result += classifier;
-        }
-        return result;
+        return classifier == null ? toGapv() : toGapv() + ":" + classifier;
     }
 
     public static GAV fromColonSeparatedGAV(String colonSeparatedGav) {
@@ -182,10 +220,43 @@ public class GAV {
     }
 
     public String getGa() {
-        return String.format("%s:%s", groupId, artifactId);
+        return groupId + ":" + artifactId;
     }
 
     public boolean matches(String expression) {
-        return toGapvc().matches(expression);
+        return ArtifactMatcher.forPattern(expression).matches(toGapvc());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GAV)) {
+            return false;
+        }
+        GAV other = (GAV) o;
+        return hashCode() == other.hashCode()
+                && Objects.equals(groupId, other.groupId)
+                && Objects.equals(artifactId, other.artifactId)
+                && Objects.equals(version, other.version);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            result = Objects.hash(groupId, artifactId, version);
+            hash = result;
+        }
+        return result;
+    }
+
+    static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        // the JVM string table doesn't keep strings that are no longer referenced
+        return value.intern();
     }
 }
@@ -0,0 +1,97 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.data;
+
+import lombok.EqualsAndHashCode;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Deduplicates {@link GAV} instances, so that an artifact seen in many places
+ * (repository, BOMs, build results) is represented by a single object during a run.
+ * <p>
+ * Unlike {@link GAV#equals(Object)}, instances are only shared if all their components,
+ * including packaging, classifier and scope, are equal.
+ * <p>
+ * Instances are kept as long as the factory is, create a factory per run (or per processed repository)
+ * rather than keeping one for the lifetime of the JVM.
+ */
+public class GAVFactory {
+    private final ConcurrentMap<Key, GAV> gavs = new ConcurrentHashMap<>();
+
+    public GAV get(String groupId, String artifactId, String version, String packaging) {
+        return get(groupId, artifactId, version, packaging, null, null);
+    }
+
+    public GAV get(String groupId, String artifactId, String version, String packaging,
+                   String classifier, String scope) {
+        Key key = new Key(groupId, artifactId, version, packaging, classifier, scope);
+        GAV existing = gavs.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        return dedupe(key, new GAV(groupId, artifactId, version, packaging, classifier, scope));
+    }
+
+    /**
+     * @return the shared instance equal to the given gav, the given one if it's the first of its kind
+     */
+    public GAV dedupe(GAV gav) {
+        Key key = new Key(gav.getGroupId(), gav.getArtifactId(), gav.getVersion(), gav.getPackaging(),
+                gav.getClassifier(), gav.getScope());
+        return dedupe(key, gav);
+    }
+
+    public GAV fromPath(String path) {
+        return dedupe(new GAV(path));
+    }
+
+    public int size() {
+        return gavs.size();
+    }
+
+    public void clear() {
+        gavs.clear();
+    }
+
+    private GAV dedupe(Key key, GAV gav) {
+        GAV existing = gavs.putIfAbsent(key, gav);
+        return existing != null ? existing : gav;
+    }
+
+    @EqualsAndHashCode
+    private static class Key {
+        private final String groupId;
+        private final String artifactId;
+        private final String version;
+        private final String packaging;
+        private final String classifier;
+        private final String scope;
+
+        private Key(String groupId, String artifactId, String version, String packaging,
+                    String classifier, String scope) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.packaging = packaging;
+            this.classifier = classifier;
+            this.scope = scope;
+        }
+    }
+}
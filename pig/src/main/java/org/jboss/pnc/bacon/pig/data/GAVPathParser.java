@@ -0,0 +1,260 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.data;
+
+import java.nio.file.Path;
+
+/**
+ * Parses paths of files in a maven repository, e.g. {@code org/jboss/foo/1.0/foo-1.0-sources.jar}, to {@link GAV}s.
+ * <p>
+ * The path is scanned once, without regular expressions or intermediate substrings, only the resulting
+ * components are allocated. Both {@code /} and {@code \} are accepted as separators.
+ * Classifier and extension are recognized from the file name, also for timestamped snapshots.
+ * If the file name does not start with {@code artifactId-version}, the extension is taken from
+ * the last dot of the file name and no classifier is assumed.
+ * <p>
+ * Parser instances keep the state of the last parse, they are not thread-safe, the static methods use
+ * one instance per thread.
+ */
+public class GAVPathParser {
+    private static final String SNAPSHOT = "SNAPSHOT";
+    private static final ThreadLocal<GAVPathParser> parsers = ThreadLocal.withInitial(GAVPathParser::new);
+
+    private CharSequence path;
+    private int groupStart;
+    private int groupEnd;
+    private int artifactStart;
+    private int artifactEnd;
+    private int versionStart;
+    private int versionEnd;
+    private int classifierStart;
+    private int classifierEnd;
+    private int extensionStart;
+    private int end;
+
+    public static GAV parse(CharSequence path) {
+        return parsers.get().parsePath(path).toGav();
+    }
+
+    public static GAV parse(Path path) {
+        return parse(path.toString());
+    }
+
+    static GAVPathParser parsed(CharSequence path) {
+        return parsers.get().parsePath(path);
+    }
+
+    GAVPathParser parsePath(CharSequence path) {
+        this.path = path;
+        int start = 0;
+        end = path.length();
+        while (start < end && isSeparator(path.charAt(start))) {
+            start++;
+        }
+        while (end > start && isSeparator(path.charAt(end - 1))) {
+            end--;
+        }
+
+        int fileStart = lastSeparator(end - 1, start) + 1;
+        versionEnd = fileStart - 1;
+        versionStart = lastSeparator(versionEnd - 1, start) + 1;
+        artifactEnd = versionStart - 1;
+        artifactStart = lastSeparator(artifactEnd - 1, start) + 1;
+        groupEnd = artifactStart - 1;
+        groupStart = start;
+        if (versionEnd <= start || artifactEnd <= start || groupEnd <= start
+                || versionStart >= versionEnd || artifactStart >= artifactEnd) {
+            throw new RuntimeException("Unable to parse path " + path + " to artifact");
+        }
+
+        parseFileName(fileStart);
+        return this;
+    }
+
+    private void parseFileName(int fileStart) {
+        classifierStart = classifierEnd = -1;
+
+        int position = matchVersionedName(fileStart);
+        if (position >= 0 && position < end) {
+            char next = path.charAt(position);
+            if (next == '.') {
+                extensionStart = position + 1;
+                return;
+            }
+            if (next == '-') {
+                int dot = indexOf('.', position + 1, end);
+                if (dot > position + 1) {
+                    classifierStart = position + 1;
+                    classifierEnd = dot;
+                    extensionStart = dot + 1;
+                    return;
+                }
+            }
+        }
+
+        // not a standard file name, e.g. maven-metadata.xml
+        extensionStart = lastIndexOf('.', end - 1, fileStart) + 1;
+    }
+
+    /**
+     * @return position right after {@code artifactId-version} in the file name or -1 if the name doesn't start with it
+     */
+    private int matchVersionedName(int fileStart) {
+        int position = fileStart;
+        if (!regionEquals(position, artifactStart, artifactEnd)) {
+            return -1;
+        }
+        position += artifactEnd - artifactStart;
+        if (position >= end || path.charAt(position) != '-') {
+            return -1;
+        }
+        position++;
+
+        if (regionEquals(position, versionStart, versionEnd)) {
+            return position + versionEnd - versionStart;
+        }
+        if (isSnapshot()) {
+            // timestamped snapshot, 1.0-SNAPSHOT -> 1.0-20190322.101010-1
+            int baseVersionEnd = versionEnd - SNAPSHOT.length();
+            if (!regionEquals(position, versionStart, baseVersionEnd)) {
+                return -1;
+            }
+            return skipTimestamp(position + baseVersionEnd - versionStart);
+        }
+        return -1;
+    }
+
+    private int skipTimestamp(int position) {
+        position = skipDigits(position, 8);
+        if (position < 0 || position >= end || path.charAt(position) != '.') {
+            return -1;
+        }
+        position = skipDigits(position + 1, 6);
+        if (position < 0 || position >= end || path.charAt(position) != '-') {
+            return -1;
+        }
+        int buildNumberStart = position + 1;
+        position = buildNumberStart;
+        while (position < end && Character.isDigit(path.charAt(position))) {
+            position++;
+        }
+        return position > buildNumberStart ? position : -1;
+    }
+
+    private int skipDigits(int position, int count) {
+        if (position + count > end) {
+            return -1;
+        }
+        for (int i = position; i < position + count; i++) {
+            if (!Character.isDigit(path.charAt(i))) {
+                return -1;
+            }
+        }
+        return position + count;
+    }
+
+    private boolean isSnapshot() {
+        int length = SNAPSHOT.length();
+        if (versionEnd - versionStart <= length || path.charAt(versionEnd - length - 1) != '-') {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (path.charAt(versionEnd - length + i) != SNAPSHOT.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean regionEquals(int position, int otherStart, int otherEnd) {
+        int length = otherEnd - otherStart;
+        if (position + length > end) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (path.charAt(position + i) != path.charAt(otherStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int lastSeparator(int from, int start) {
+        for (int i = from; i >= start; i--) {
+            if (isSeparator(path.charAt(i))) {
+                return i;
+            }
+        }
+        return start - 1;
+    }
+
+    private int lastIndexOf(char c, int from, int start) {
+        for (int i = from; i >= start; i--) {
+            if (path.charAt(i) == c) {
+                return i;
+            }
+        }
+        return start - 1;
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (path.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '/' || c == '\\';
+    }
+
+    String groupId() {
+        char[] groupId = new char[groupEnd - groupStart];
+        for (int i = 0; i < groupId.length; i++) {
+            char c = path.charAt(groupStart + i);
+            groupId[i] = isSeparator(c) ? '.' : c;
+        }
+        return new String(groupId);
+    }
+
+    String artifactId() {
+        return substring(artifactStart, artifactEnd);
+    }
+
+    String version() {
+        return substring(versionStart, versionEnd);
+    }
+
+    String classifier() {
+        return classifierStart < 0 ? null : substring(classifierStart, classifierEnd);
+    }
+
+    String extension() {
+        return substring(extensionStart, end);
+    }
+
+    GAV toGav() {
+        return new GAV(groupId(), artifactId(), version(), extension(), classifier());
+    }
+
+    private String substring(int from, int to) {
+        return path.subSequence(from, to).toString();
+    }
+}
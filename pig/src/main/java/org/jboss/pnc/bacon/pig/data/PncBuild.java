@@ -22,10 +22,15 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.jboss.pnc.bacon.config.PigConfig;
+import org.jboss.pnc.bacon.pig.download.DownloadEngine;
+import org.jboss.pnc.bacon.pig.repo.RepositoryZipStreamer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -81,7 +86,8 @@ public class PncBuild {
     }
 
     public Artifact findArtifact(String regex) {
-        List<Artifact> matches = findArtifactsMatching(a -> a.getGapv().matches(regex));
+        ArtifactMatcher matcher = ArtifactMatcher.forPattern(regex);
+        List<Artifact> matches = findArtifactsMatching(a -> matcher.matches(a.getGapv()));
         if (matches.size() != 1) {
             throw new RuntimeException(
                     "Expecting exactly one artifact matching " + regex + ", found " + matches.size()
@@ -91,7 +97,8 @@ public class PncBuild {
     }
 
     public Artifact findArtifactByFileName(String regex) {
-        List<Artifact> matches = findArtifactsMatching(a -> a.getFileName().matches(regex));
+        ArtifactMatcher matcher = ArtifactMatcher.forPattern(regex);
+        List<Artifact> matches = findArtifactsMatching(a -> matcher.matches(a.getFileName()));
         if (matches.size() != 1) {
             throw new RuntimeException(
                     "Expecting exactly one artifact matching " + regex + ", found " + matches.size()
@@ -101,7 +108,41 @@ public class PncBuild {
     }
 
     public void downloadArtifact(String pattern, File downloadedZip) {
-        Predicate<Artifact> query = a -> a.getFileName().matches(pattern);
+        downloadArtifact(pattern, downloadedZip, PigConfig.instance().getLargeFileDownloadSegments());
+    }
+
+    /**
+     * @param segments number of parallel connections to download the artifact with
+     */
+    public void downloadArtifact(String pattern, File downloadedZip, int segments) {
+        findSingleArtifactToDownload(pattern).downloadTo(downloadedZip, segments);
+    }
+
+    /**
+     * Download the built artifacts with file names matching any of the patterns to the directory, in parallel
+     *
+     * @return the downloaded artifacts
+     */
+    public List<Artifact> downloadArtifacts(Collection<String> patterns, Path directory) {
+        List<Artifact> artifacts = findArtifactsByFileNames(patterns).values()
+                .stream()
+                .flatMap(List::stream)
+                .distinct()
+                .collect(Collectors.toList());
+        DownloadEngine.downloadAll(artifacts, directory);
+        return artifacts;
+    }
+
+    /**
+     * Processes a repository zip while downloading it, without storing the zip itself on disk.
+     */
+    public RepositoryData streamRepositoryArtifact(String pattern, RepositoryZipStreamer streamer) {
+        return streamer.process(findSingleArtifactToDownload(pattern));
+    }
+
+    private Artifact findSingleArtifactToDownload(String pattern) {
+        ArtifactMatcher matcher = ArtifactMatcher.forPattern(pattern);
+        Predicate<Artifact> query = a -> matcher.matches(a.getFileName());
         List<Artifact> artifacts = findArtifactsMatching(query);
 
         if (artifacts.size() != 1) {
@@ -109,8 +150,16 @@ public class PncBuild {
                     "Expecting one artifact matching " + pattern + " in build " + id + " , found: " + artifacts);
         }
 
-        Artifact artifact = artifacts.get(0);
-        artifact.downloadTo(downloadedZip);
+        return artifacts.get(0);
+    }
+
+    /**
+     * Finds built artifacts with file names matching each of the patterns, with a single pass over the artifacts
+     *
+     * @return artifacts matching each pattern, in the order of the patterns
+     */
+    public Map<String, List<Artifact>> findArtifactsByFileNames(Collection<String> patterns) {
+        return ArtifactMatcher.of(patterns).group(getBuiltArtifacts(), Artifact::getFileName);
     }
 
     private List<Artifact> findArtifactsMatching(Predicate<Artifact> query) {
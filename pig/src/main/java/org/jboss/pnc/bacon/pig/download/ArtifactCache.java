@@ -0,0 +1,424 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import org.jboss.pnc.bacon.config.PigConfig;
+import org.jboss.pnc.bacon.pig.PigException;
+import org.jboss.pnc.bacon.pig.data.Artifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Local, content-addressed cache of downloaded artifacts, shared between PiG runs.
+ * <p>
+ * Files are stored under {@code objects/<algorithm>/<first two characters of checksum>/<checksum>},
+ * using the strongest checksum PNC provides for the artifact. Artifacts without checksums are not cached.
+ * {@code index} maps artifact identifiers to the stored objects, it's an append-only log, the last entry wins.
+ * Artifacts are looked up by their identifier in the index first; an indexed object is only used if it matches
+ * the checksum PNC provides for the artifact. Artifacts not found in the index are looked up by the checksum,
+ * to reuse the same content published under a different identifier.
+ * <p>
+ * Objects are copied to the target location, so that changes to the delivered files cannot corrupt the cache.
+ * Checksums that are not lowercase hex strings of the algorithm's length are treated as a cache miss.
+ * <p>
+ * Hits and misses are counted in {@code stats}, so that they are reported across runs.
+ * <p>
+ * The modification time of an object is updated on each use, the least recently used objects are removed
+ * when the cache grows above the configured size.
+ */
+public class ArtifactCache {
+    private static final Logger log = LoggerFactory.getLogger(ArtifactCache.class);
+
+    private static final String OBJECTS = "objects";
+    private static final String INDEX = "index";
+    private static final String STATS = "stats";
+    private static final String HITS = "hits";
+    private static final String MISSES = "misses";
+
+    private static final Map<String, Integer> CHECKSUM_LENGTHS = new HashMap<>();
+
+    static {
+        CHECKSUM_LENGTHS.put("md5", 32);
+        CHECKSUM_LENGTHS.put("sha1", 40);
+        CHECKSUM_LENGTHS.put("sha256", 64);
+    }
+
+    private static volatile ArtifactCache instance;
+
+    private final boolean enabled;
+    private final Path root;
+    private final Path objects;
+    private final Path index;
+    private final long maxSize;
+
+    private final Path statsFile;
+
+    // guarded by this, lazily computed
+    private Long currentSize;
+    // guarded by this, lazily loaded, identifier -> object path relative to the root
+    private Map<String, String> indexEntries;
+    // guarded by this, lazily loaded
+    private Properties persistedStats;
+
+    public ArtifactCache(Path root, long maxSize, boolean enabled) {
+        this.root = root;
+        this.objects = root.resolve(OBJECTS);
+        this.index = root.resolve(INDEX);
+        this.statsFile = root.resolve(STATS);
+        this.maxSize = maxSize;
+        this.enabled = enabled;
+    }
+
+    public static ArtifactCache instance() {
+        if (instance == null) {
+            synchronized (ArtifactCache.class) {
+                if (instance == null) {
+                    PigConfig config = PigConfig.instance();
+                    instance = new ArtifactCache(config.resolveCacheDirectory(),
+                            config.getCacheMaxSizeMb() * 1024 * 1024,
+                            config.isCacheEnabled());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Put the cached copy of the artifact at the target location
+     *
+     * @param artifact artifact to look up
+     * @param target target file
+     * @return true if the artifact was found in the cache
+     */
+    public boolean restore(Artifact artifact, File target) {
+        Path object = lookup(artifact);
+        if (object == null) {
+            record(MISSES);
+            return false;
+        }
+        try {
+            Files.setLastModifiedTime(object, FileTime.fromMillis(System.currentTimeMillis()));
+            Files.copy(object, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            record(HITS);
+            DownloadMetrics.instance().cacheHit();
+            log.info("Took {} from the local artifact cache", artifact.getGapv());
+            return true;
+        } catch (IOException e) {
+            log.warn("Failed to take {} from the local artifact cache, it will be downloaded", artifact.getGapv(), e);
+            record(MISSES);
+            return false;
+        }
+    }
+
+    /**
+     * @return the cached object for the artifact or null if the artifact is not in the cache
+     */
+    private Path lookup(Artifact artifact) {
+        Path expected = objectPath(artifact);
+        if (expected == null) {
+            return null;
+        }
+        String indexed = indexEntry(artifact.getGapv());
+        if (indexed != null) {
+            Path object = root.resolve(indexed);
+            if (object.equals(expected) && Files.isRegularFile(object)) {
+                return object;
+            }
+            log.debug("Index entry for {} doesn't match its checksum or the object is gone", artifact.getGapv());
+        }
+        if (!Files.isRegularFile(expected)) {
+            return null;
+        }
+        try {
+            appendToIndex(artifact.getGapv(), root.relativize(expected));
+        } catch (IOException e) {
+            log.warn("Failed to add {} to the artifact cache index", artifact.getGapv(), e);
+        }
+        return expected;
+    }
+
+    /**
+     * Add a downloaded artifact to the cache. Failures are logged and ignored, caching is best effort.
+     *
+     * @param artifact the artifact
+     * @param file the downloaded file
+     */
+    public void store(Artifact artifact, File file) {
+        Path object = objectPath(artifact);
+        if (object == null || Files.exists(object)) {
+            return;
+        }
+        try {
+            Files.createDirectories(object.getParent());
+            Path temp = Files.createTempFile(object.getParent(), object.getFileName().toString(), ".tmp");
+            try {
+                Files.copy(file.toPath(), temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            appendToIndex(artifact.getGapv(), root.relativize(object));
+            grow(Files.size(object));
+        } catch (IOException e) {
+            log.warn("Failed to add {} to the local artifact cache", artifact.getGapv(), e);
+        }
+    }
+
+    /**
+     * Remove the least recently used objects until the cache fits in the size limit,
+     * and drop index entries pointing to missing objects
+     */
+    public synchronized void prune() {
+        prune(maxSize);
+    }
+
+    /**
+     * Remove all the objects and reset the hit and miss counts
+     */
+    public synchronized void clear() {
+        prune(0);
+        persistedStats = new Properties();
+        try {
+            Files.deleteIfExists(statsFile);
+        } catch (IOException e) {
+            log.warn("Failed to reset the artifact cache stats {}", statsFile, e);
+        }
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(root, listObjects().size(), size(), maxSize, count(HITS), count(MISSES));
+    }
+
+    private synchronized void record(String counter) {
+        if (!enabled) {
+            return;
+        }
+        persistedStats().setProperty(counter, String.valueOf(count(counter) + 1));
+        try {
+            Files.createDirectories(root);
+            Path temp = Files.createTempFile(root, STATS, ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                persistedStats.store(writer, null);
+            }
+            Files.move(temp, statsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to update the artifact cache stats {}", statsFile, e);
+        }
+    }
+
+    private long count(String counter) {
+        try {
+            return Long.parseLong(persistedStats().getProperty(counter, "0"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private Properties persistedStats() {
+        if (persistedStats == null) {
+            persistedStats = new Properties();
+            if (Files.exists(statsFile)) {
+                try (Reader reader = Files.newBufferedReader(statsFile, StandardCharsets.UTF_8)) {
+                    persistedStats.load(reader);
+                } catch (IOException e) {
+                    log.warn("Failed to read the artifact cache stats {}, counting from 0", statsFile, e);
+                }
+            }
+        }
+        return persistedStats;
+    }
+
+    private synchronized void grow(long bytes) {
+        currentSize = size() + bytes;
+        if (currentSize > maxSize) {
+            prune(maxSize);
+        }
+    }
+
+    private void prune(long limit) {
+        List<Path> objectsByAge = listObjects();
+        objectsByAge.sort(Comparator.comparing(ArtifactCache::lastModified));
+        long size = size();
+        for (Path object : objectsByAge) {
+            if (size <= limit) {
+                break;
+            }
+            try {
+                long objectSize = Files.size(object);
+                Files.delete(object);
+                size -= objectSize;
+            } catch (IOException e) {
+                log.warn("Failed to remove {} from the local artifact cache", object, e);
+            }
+        }
+        currentSize = size;
+        compactIndex();
+    }
+
+    private long size() {
+        if (currentSize == null) {
+            long size = 0;
+            for (Path object : listObjects()) {
+                size += object.toFile().length();
+            }
+            currentSize = size;
+        }
+        return currentSize;
+    }
+
+    private List<Path> listObjects() {
+        if (!Files.isDirectory(objects)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.walk(objects)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(f -> !f.getFileName().toString().endsWith(".tmp"))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new PigException("Failed to list the contents of the artifact cache " + objects, e);
+        }
+    }
+
+    private synchronized String indexEntry(String identifier) {
+        return indexEntries().get(identifier);
+    }
+
+    private synchronized void appendToIndex(String identifier, Path object) throws IOException {
+        String relativePath = object.toString();
+        if (relativePath.equals(indexEntries().get(identifier))) {
+            return;
+        }
+        Files.createDirectories(root);
+        try (BufferedWriter writer = Files.newBufferedWriter(index, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(identifier + "\t" + relativePath);
+            writer.newLine();
+        }
+        indexEntries.put(identifier, relativePath);
+    }
+
+    private Map<String, String> indexEntries() {
+        if (indexEntries == null) {
+            indexEntries = new HashMap<>();
+            if (Files.exists(index)) {
+                try {
+                    for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                        String[] identifierAndObject = line.split("\t", 2);
+                        if (identifierAndObject.length == 2) {
+                            indexEntries.put(identifierAndObject[0], identifierAndObject[1]);
+                        }
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to read the artifact cache index {}, artifacts will be looked up by checksums",
+                            index, e);
+                }
+            }
+        }
+        return indexEntries;
+    }
+
+    private void compactIndex() {
+        Map<String, String> entries = indexEntries();
+        entries.values().removeIf(object -> !Files.exists(root.resolve(object)));
+        if (!Files.exists(index)) {
+            return;
+        }
+        try {
+            List<String> lines = entries.entrySet()
+                    .stream()
+                    .map(e -> e.getKey() + "\t" + e.getValue())
+                    .sorted()
+                    .collect(Collectors.toList());
+            Path temp = Files.createTempFile(root, INDEX, ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to compact the artifact cache index {}", index, e);
+        }
+    }
+
+    private Path objectPath(Artifact artifact) {
+        if (!enabled) {
+            return null;
+        }
+        Checksums checksums = artifact.getChecksums();
+        if (checksums.getSha256() != null) {
+            return objectPath("sha256", checksums.getSha256());
+        }
+        if (checksums.getSha1() != null) {
+            return objectPath("sha1", checksums.getSha1());
+        }
+        if (checksums.getMd5() != null) {
+            return objectPath("md5", checksums.getMd5());
+        }
+        return null;
+    }
+
+    /**
+     * @return null for checksums that are not lowercase hex of the expected length,
+     * they could point outside of the cache directory
+     */
+    private Path objectPath(String algorithm, String checksum) {
+        if (!isHex(checksum, CHECKSUM_LENGTHS.get(algorithm))) {
+            log.debug("Invalid {} checksum {}, skipping the artifact cache", algorithm, checksum);
+            return null;
+        }
+        return objects.resolve(algorithm).resolve(checksum.substring(0, 2)).resolve(checksum);
+    }
+
+    private static boolean isHex(String checksum, int length) {
+        if (checksum.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = checksum.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
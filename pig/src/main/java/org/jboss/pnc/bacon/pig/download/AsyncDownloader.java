@@ -0,0 +1,263 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.jboss.pnc.bacon.config.PigConfig;
+import org.jboss.pnc.bacon.pig.FileDownloadUtils;
+import org.jboss.pnc.bacon.pig.PigException;
+import org.jboss.pnc.bacon.pig.data.Artifact;
+import org.jboss.pnc.bacon.pig.utils.DaemonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Non-blocking downloads, hundreds of concurrent transfers are handled by a handful of I/O threads.
+ * <p>
+ * Response bodies are written directly to {@link java.nio.channels.FileChannel}s,
+ * see {@link FileChannelConsumer}. Checksums are verified and files are added to the {@link ArtifactCache}
+ * on a small separate pool, to keep blocking operations off the I/O threads.
+ * <p>
+ * SSL certificates are verified the same way as for blocking downloads: the per-host decision kept in
+ * {@link DownloadClients} is respected and a host that fails certificate verification is marked as requiring
+ * the trust-all client. Failed downloads are not retried.
+ */
+public class AsyncDownloader implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AsyncDownloader.class);
+
+    private static final int POST_PROCESSING_THREADS = 2;
+
+    private final PigConfig config;
+    private final DownloadClients trustDecisions;
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient client;
+    // guarded by this, created when the first host requiring it is found
+    private CloseableHttpAsyncClient unsafeClient;
+    private final ExecutorService postProcessing =
+            Executors.newFixedThreadPool(POST_PROCESSING_THREADS, new DaemonThreadFactory("pig-download-post"));
+
+    public AsyncDownloader() {
+        this(PigConfig.instance(), DownloadClients.instance());
+    }
+
+    public AsyncDownloader(PigConfig config, DownloadClients trustDecisions) {
+        this.config = config;
+        this.trustDecisions = trustDecisions;
+        connectionManager = connectionManager(config, SSLIOSessionStrategy.getDefaultStrategy());
+        client = client(connectionManager);
+    }
+
+    /**
+     * Download a file without blocking the caller
+     *
+     * @param url url of the file
+     * @param target target file
+     * @param expected expected checksums, the future fails if the file doesn't match them
+     * @return future of the checksums of the downloaded file
+     */
+    public CompletableFuture<Checksums> download(URI url, File target, Checksums expected) {
+        TransferMetrics metrics = DownloadMetrics.instance().start(url);
+        CompletableFuture<Checksums> transfer;
+        if (trustDecisions.requiresTrustAll(url)) {
+            transfer = execute(unsafeClient(), url, target, metrics);
+        } else {
+            transfer = execute(client, url, target, metrics)
+                    .handle((checksums, error) -> {
+                        if (error == null) {
+                            return CompletableFuture.completedFuture(checksums);
+                        }
+                        if (FailureType.of(error) == FailureType.TLS) {
+                            trustDecisions.markRequiresTrustAll(url);
+                            return execute(unsafeClient(), url, target, metrics);
+                        }
+                        CompletableFuture<Checksums> failure = new CompletableFuture<>();
+                        failure.completeExceptionally(error);
+                        return failure;
+                    })
+                    .thenCompose(Function.identity());
+        }
+        return transfer.thenApplyAsync(checksums -> verify(url, target, checksums, expected), postProcessing)
+                .whenComplete((checksums, error) -> {
+                    if (error == null) {
+                        metrics.finished();
+                    } else {
+                        metrics.failed(FailureType.of(error));
+                    }
+                });
+    }
+
+    private static CompletableFuture<Checksums> execute(CloseableHttpAsyncClient client,
+                                                        URI url,
+                                                        File target,
+                                                        TransferMetrics metrics) {
+        CompletableFuture<Checksums> transfer = new CompletableFuture<>();
+        client.execute(HttpAsyncMethods.createGet(url), new FileChannelConsumer(url, target, metrics),
+                new FutureCallback<Checksums>() {
+                    @Override
+                    public void completed(Checksums result) {
+                        transfer.complete(result);
+                    }
+
+                    @Override
+                    public void failed(Exception e) {
+                        transfer.completeExceptionally(e);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        transfer.cancel(false);
+                    }
+                });
+        return transfer;
+    }
+
+    private synchronized CloseableHttpAsyncClient unsafeClient() {
+        if (unsafeClient == null) {
+            unsafeClient = client(connectionManager(config,
+                    new SSLIOSessionStrategy(DownloadClients.trustAllSslContext(), NoopHostnameVerifier.INSTANCE)));
+        }
+        return unsafeClient;
+    }
+
+    /**
+     * Download the artifacts to the directory, each to a file named after the artifact file name.
+     * Artifacts found in the {@link ArtifactCache} are taken from there.
+     *
+     * @return future completed when all the downloads finish,
+     * completed exceptionally with a {@link PigException} if any of them fails
+     */
+    public CompletableFuture<Void> downloadToDirectory(Collection<Artifact> artifacts, Path directory) {
+        log.info("Downloading {} artifacts to {}", artifacts.size(), directory);
+        DownloadProgress progress = DownloadProgress.start(artifacts.size());
+        ArtifactCache cache = ArtifactCache.instance();
+        List<CompletableFuture<Void>> results = new ArrayList<>(artifacts.size());
+        for (Artifact artifact : artifacts) {
+            File target = directory.resolve(artifact.getFileName()).toFile();
+            if (cache.restore(artifact, target)) {
+                continue;
+            }
+            results.add(
+                    download(URI.create(artifact.getDownloadUrl()), target, artifact.getChecksums())
+                            .thenAcceptAsync(checksums -> cache.store(artifact, target), postProcessing)
+            );
+        }
+        return DownloadEngine.aggregate(results)
+                .whenComplete((ignored, error) -> progress.close());
+    }
+
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    private static Checksums verify(URI url, File target, Checksums checksums, Checksums expected) {
+        try {
+            if (checksums == null) {
+                // (part of) the content was transferred directly to the file
+                checksums = Checksums.of(target);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compute checksums of " + target, e);
+        }
+        FileDownloadUtils.verify(url, target, checksums, expected);
+        log.info("Downloaded {} to {}", url, target);
+        return checksums;
+    }
+
+    private static PoolingNHttpClientConnectionManager connectionManager(PigConfig config,
+                                                                         SchemeIOSessionStrategy sslStrategy) {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(config.getDownloadIoThreads())
+                .setConnectTimeout(DownloadClients.CONNECTION_TIMEOUT)
+                .setSoTimeout(DownloadClients.READ_TIMEOUT)
+                .build();
+        Registry<SchemeIOSessionStrategy> registry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", sslStrategy)
+                .build();
+        PoolingNHttpClientConnectionManager connectionManager;
+        try {
+            connectionManager =
+                    new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig), registry);
+        } catch (IOReactorException e) {
+            throw new PigException("Failed to initialize the non-blocking download client", e);
+        }
+        connectionManager.setMaxTotal(config.getDownloadPoolSize());
+        connectionManager.setDefaultMaxPerRoute(config.getDownloadPoolSizePerHost());
+        return connectionManager;
+    }
+
+    private static CloseableHttpAsyncClient client(PoolingNHttpClientConnectionManager connectionManager) {
+        RequestConfig requestConfig = RequestConfig.copy(RequestConfig.DEFAULT)
+                .setConnectTimeout(DownloadClients.CONNECTION_TIMEOUT)
+                .setSocketTimeout(DownloadClients.READ_TIMEOUT)
+                .build();
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+        client.start();
+        return client;
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(client);
+        synchronized (this) {
+            if (unsafeClient != null) {
+                closeQuietly(unsafeClient);
+            }
+        }
+        postProcessing.shutdown();
+    }
+
+    private static void closeQuietly(CloseableHttpAsyncClient client) {
+        try {
+            client.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the non-blocking download client", e);
+        }
+    }
+}
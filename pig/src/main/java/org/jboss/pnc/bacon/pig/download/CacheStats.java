@@ -0,0 +1,40 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+@Getter
+@AllArgsConstructor
+public class CacheStats {
+    private final Path location;
+    private final int objectCount;
+    private final long size;
+    private final long maxSize;
+    private final long hits;
+    private final long misses;
+
+    @Override
+    public String toString() {
+        return String.format("location: %s%nobjects: %d%nsize: %d MB (max %d MB)%nhits: %d, misses: %d",
+                location, objectCount, size / (1024 * 1024), maxSize / (1024 * 1024), hits, misses);
+    }
+}
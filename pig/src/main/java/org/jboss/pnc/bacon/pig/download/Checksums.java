@@ -0,0 +1,156 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.jboss.pnc.bacon.pig.utils.HashUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * md5, sha1 and sha256 checksums of a file, as hex strings. Any of them may be missing.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class Checksums {
+    public static final Checksums NONE = new Checksums(null, null, null);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String md5;
+    private final String sha1;
+    private final String sha256;
+
+    public Checksums(String md5, String sha1, String sha256) {
+        this.md5 = normalize(md5);
+        this.sha1 = normalize(sha1);
+        this.sha256 = normalize(sha256);
+    }
+
+    /**
+     * Reads the whole file to compute its checksums.
+     * Prefer {@link Calculator} to compute the checksums while the file is being written
+     */
+    public static Checksums of(File file) throws IOException {
+        Calculator calculator = new Calculator();
+        calculator.update(file);
+        return calculator.checksums();
+    }
+
+    /**
+     * Compare with the expected checksums. Only the checksums present in both are compared.
+     *
+     * @param expected expected checksums
+     * @return descriptions of the mismatches, empty if the checksums match
+     */
+    public List<String> mismatches(Checksums expected) {
+        List<String> mismatches = new ArrayList<>();
+        compare("md5", expected.md5, md5, mismatches);
+        compare("sha1", expected.sha1, sha1, mismatches);
+        compare("sha256", expected.sha256, sha256, mismatches);
+        return mismatches;
+    }
+
+    public boolean isEmpty() {
+        return md5 == null && sha1 == null && sha256 == null;
+    }
+
+    /**
+     * write the checksums to {@code <file>.md5}, {@code <file>.sha1} and {@code <file>.sha256}
+     */
+    public void writeSidecars(File file) throws IOException {
+        writeSidecar(file, "md5", md5);
+        writeSidecar(file, "sha1", sha1);
+        writeSidecar(file, "sha256", sha256);
+    }
+
+    private static void writeSidecar(File file, String extension, String checksum) throws IOException {
+        if (checksum != null) {
+            File sidecar = new File(file.getPath() + "." + extension);
+            Files.write(sidecar.toPath(), checksum.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void compare(String algorithm, String expected, String actual, List<String> mismatches) {
+        if (expected != null && actual != null && !expected.equals(actual)) {
+            mismatches.add(algorithm + ": expected " + expected + ", got " + actual);
+        }
+    }
+
+    private static String normalize(String checksum) {
+        return checksum == null ? null : checksum.trim().toLowerCase();
+    }
+
+    /**
+     * Computes all the checksums in a single pass over the data
+     */
+    public static class Calculator {
+        private final MessageDigest md5 = digest("MD5");
+        private final MessageDigest sha1 = digest("SHA-1");
+        private final MessageDigest sha256 = digest("SHA-256");
+
+        public void update(byte[] data, int offset, int length) {
+            md5.update(data, offset, length);
+            sha1.update(data, offset, length);
+            sha256.update(data, offset, length);
+        }
+
+        public void update(ByteBuffer data) {
+            md5.update(data.duplicate());
+            sha1.update(data.duplicate());
+            sha256.update(data.duplicate());
+        }
+
+        public void update(File file) throws IOException {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream input = new FileInputStream(file)) {
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    update(buffer, 0, read);
+                }
+            }
+        }
+
+        public Checksums checksums() {
+            return new Checksums(HashUtils.toHex(md5.digest()),
+                    HashUtils.toHex(sha1.digest()),
+                    HashUtils.toHex(sha256.digest()));
+        }
+
+        private static MessageDigest digest(String algorithm) {
+            try {
+                return MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Checksum algorithm " + algorithm + " is not available", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.TrustAllStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.jboss.pnc.bacon.config.PigConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.net.URI;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived, connection-pooled http clients used for all the file downloads.
+ * <p>
+ * Connections are kept alive and reused between downloads so that fetching thousands of artifacts
+ * from the same host doesn't pay for a TCP and TLS handshake per file.
+ * Pool sizes are taken from the {@code pig} section of the bacon configuration.
+ */
+public class DownloadClients {
+    private static final Logger log = LoggerFactory.getLogger(DownloadClients.class);
+
+    static final int CONNECTION_TIMEOUT = 300000;
+
+    static final int READ_TIMEOUT = 900000;
+
+    private static volatile DownloadClients instance;
+
+    private final PoolingHttpClientConnectionManager safeConnectionManager;
+    private final PoolingHttpClientConnectionManager unsafeConnectionManager;
+    private final CloseableHttpClient safeClient;
+    private final CloseableHttpClient unsafeClient;
+
+    private final Set<String> trustAllHosts = ConcurrentHashMap.newKeySet();
+
+    private DownloadClients(PigConfig config) {
+        RequestConfig requestConfig = RequestConfig.copy(RequestConfig.DEFAULT)
+                .setConnectTimeout(CONNECTION_TIMEOUT)
+                .setSocketTimeout(READ_TIMEOUT)
+                .build();
+
+        safeConnectionManager = connectionManager(config, null);
+        safeClient = client(safeConnectionManager, requestConfig, config);
+
+        unsafeConnectionManager = connectionManager(config, trustAllSocketFactory());
+        unsafeClient = client(unsafeConnectionManager, requestConfig, config);
+    }
+
+    public static DownloadClients instance() {
+        if (instance == null) {
+            synchronized (DownloadClients.class) {
+                if (instance == null) {
+                    instance = new DownloadClients(PigConfig.instance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return client that verifies SSL certificates
+     */
+    public CloseableHttpClient safe() {
+        return safeClient;
+    }
+
+    /**
+     * @return client that trusts all SSL certificates and doesn't verify host names
+     */
+    public CloseableHttpClient unsafe() {
+        return unsafeClient;
+    }
+
+    /**
+     * @return the unsafe client if the host is known to fail SSL certificate verification, the safe one otherwise
+     */
+    public CloseableHttpClient clientFor(URI url) {
+        return requiresTrustAll(url) ? unsafeClient : safeClient;
+    }
+
+    public boolean requiresTrustAll(URI url) {
+        return trustAllHosts.contains(hostOf(url));
+    }
+
+    /**
+     * Remember that the host failed SSL certificate verification,
+     * all the subsequent downloads from it will use the unsafe client straight away
+     */
+    public void markRequiresTrustAll(URI url) {
+        if (trustAllHosts.add(hostOf(url))) {
+            log.warn("SSL certificate verification failed for {}, " +
+                    "all the downloads from it will be done without SSL certificate check", hostOf(url));
+        }
+    }
+
+    private static String hostOf(URI url) {
+        return url.getHost() == null ? "" : url.getHost().toLowerCase();
+    }
+
+    public PoolStats getSafePoolStats() {
+        return safeConnectionManager.getTotalStats();
+    }
+
+    public PoolStats getUnsafePoolStats() {
+        return unsafeConnectionManager.getTotalStats();
+    }
+
+    public void logPoolStats() {
+        if (log.isDebugEnabled()) {
+            log.debug("Download connection pools, safe: {}, unsafe: {}", getSafePoolStats(), getUnsafePoolStats());
+        }
+    }
+
+    public static void close() {
+        synchronized (DownloadClients.class) {
+            if (instance != null) {
+                closeQuietly(instance.safeClient);
+                closeQuietly(instance.unsafeClient);
+                instance = null;
+            }
+        }
+    }
+
+    private static void closeQuietly(CloseableHttpClient client) {
+        try {
+            client.close();
+        } catch (IOException e) {
+            log.warn("Failed to close download http client", e);
+        }
+    }
+
+    private static PoolingHttpClientConnectionManager connectionManager(PigConfig config,
+                                                                        SSLConnectionSocketFactory sslSocketFactory) {
+        PoolingHttpClientConnectionManager connectionManager;
+        if (sslSocketFactory == null) {
+            connectionManager = new PoolingHttpClientConnectionManager();
+        } else {
+            Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                    .register("https", sslSocketFactory)
+                    .build();
+            connectionManager = new PoolingHttpClientConnectionManager(registry);
+        }
+        connectionManager.setMaxTotal(config.getDownloadPoolSize());
+        connectionManager.setDefaultMaxPerRoute(config.getDownloadPoolSizePerHost());
+        return connectionManager;
+    }
+
+    private static CloseableHttpClient client(PoolingHttpClientConnectionManager connectionManager,
+                                              RequestConfig requestConfig,
+                                              PigConfig config) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(config.getDownloadIdleTimeoutSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    private static SSLConnectionSocketFactory trustAllSocketFactory() {
+        return new SSLConnectionSocketFactory(trustAllSslContext(), NoopHostnameVerifier.INSTANCE);
+    }
+
+    static SSLContext trustAllSslContext() {
+        try {
+            return new SSLContextBuilder().loadTrustMaterial(null, TrustAllStrategy.INSTANCE).build();
+        } catch (NoSuchAlgorithmException | KeyManagementException | KeyStoreException e) {
+            throw new RuntimeException("Failed to initialize unsafe http client for file downloads", e);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import org.jboss.pnc.bacon.config.PigConfig;
+import org.jboss.pnc.bacon.pig.PigException;
+import org.jboss.pnc.bacon.pig.data.Artifact;
+import org.jboss.pnc.bacon.pig.utils.DaemonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Downloads batches of files in parallel.
+ * <p>
+ * At most {@code concurrency} downloads run at a time, at most {@code concurrencyPerHost} of them
+ * against a single host. Hosts are served in a round-robin fashion so that a large batch from one
+ * host does not starve the others.
+ */
+public class DownloadEngine implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(DownloadEngine.class);
+
+    private final int concurrency;
+    private final int concurrencyPerHost;
+    private final ExecutorService executor;
+
+    // guarded by this
+    private final Map<String, Queue<Job>> pendingByHost = new LinkedHashMap<>();
+    private final Map<String, Integer> activeByHost = new HashMap<>();
+    private int active = 0;
+
+    public DownloadEngine() {
+        this(PigConfig.instance().getDownloadConcurrency(), PigConfig.instance().getDownloadConcurrencyPerHost());
+    }
+
+    public DownloadEngine(int concurrency, int concurrencyPerHost) {
+        if (concurrency < 1 || concurrencyPerHost < 1) {
+            throw new IllegalArgumentException("Download concurrency has to be positive, got: " +
+                    concurrency + ", per host: " + concurrencyPerHost);
+        }
+        this.concurrency = concurrency;
+        this.concurrencyPerHost = concurrencyPerHost;
+        executor = Executors.newFixedThreadPool(concurrency, new DaemonThreadFactory("pig-download"));
+    }
+
+    /**
+     * Download the artifacts to the directory, each to a file named after the artifact file name
+     *
+     * @param artifacts artifacts to download
+     * @param directory target directory
+     * @return future completed when all the downloads finish,
+     * completed exceptionally with a {@link PigException} if any of them fails
+     */
+    public CompletableFuture<Void> downloadToDirectory(Collection<Artifact> artifacts, Path directory) {
+        log.info("Downloading {} artifacts to {}", artifacts.size(), directory);
+        DownloadProgress progress = DownloadProgress.start(artifacts.size());
+        List<CompletableFuture<Void>> results = new ArrayList<>(artifacts.size());
+        for (Artifact artifact : artifacts) {
+            results.add(submit(
+                    hostOf(artifact.getDownloadUrl()),
+                    artifact.getGapv(),
+                    () -> artifact.downloadToDirectory(directory)
+            ));
+        }
+        return aggregate(results)
+                .whenComplete((ignored, error) -> progress.close());
+    }
+
+    /**
+     * Download the artifacts to the directory in parallel and wait for all the downloads to finish.
+     * Uses the {@link AsyncDownloader} if non-blocking downloads are enabled in the pig configuration.
+     *
+     * @param artifacts artifacts to download
+     * @param directory target directory
+     * @throws PigException if any of the downloads fails, with the failures attached as suppressed exceptions
+     */
+    public static void downloadAll(Collection<Artifact> artifacts, Path directory) {
+        try {
+            if (PigConfig.instance().isNonBlockingDownloads()) {
+                try (AsyncDownloader downloader = new AsyncDownloader()) {
+                    downloader.downloadToDirectory(artifacts, directory).join();
+                }
+            } else {
+                try (DownloadEngine engine = new DownloadEngine()) {
+                    engine.downloadToDirectory(artifacts, directory).join();
+                }
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof PigException) {
+                throw (PigException) e.getCause();
+            }
+            throw new PigException("Failed to download artifacts to " + directory, e.getCause());
+        }
+    }
+
+    /**
+     * Schedule a single download
+     *
+     * @param host host the download is performed from, used to limit the per-host concurrency
+     * @param description description of the download used in the error report
+     * @param download the download action
+     * @return future completed when the download finishes
+     */
+    public CompletableFuture<Void> submit(String host, String description, Runnable download) {
+        Job job = new Job(description, download);
+        synchronized (this) {
+            pendingByHost.computeIfAbsent(host, h -> new ArrayDeque<>()).add(job);
+        }
+        scheduleNext();
+        return job.result;
+    }
+
+    private void scheduleNext() {
+        List<Runnable> toStart = new ArrayList<>();
+        synchronized (this) {
+            boolean progress = true;
+            while (progress && active < concurrency) {
+                progress = false;
+                List<Map.Entry<String, Queue<Job>>> served = new ArrayList<>();
+                Iterator<Map.Entry<String, Queue<Job>>> hosts = pendingByHost.entrySet().iterator();
+                while (active < concurrency && hosts.hasNext()) {
+                    Map.Entry<String, Queue<Job>> entry = hosts.next();
+                    String host = entry.getKey();
+                    int activeForHost = activeByHost.getOrDefault(host, 0);
+                    if (activeForHost >= concurrencyPerHost) {
+                        continue;
+                    }
+                    Job job = entry.getValue().poll();
+                    hosts.remove();
+                    if (!entry.getValue().isEmpty()) {
+                        // move the host to the end of the queue to serve the other hosts first
+                        served.add(entry);
+                    }
+                    active++;
+                    activeByHost.put(host, activeForHost + 1);
+                    toStart.add(() -> run(host, job));
+                    progress = true;
+                }
+                served.forEach(e -> pendingByHost.put(e.getKey(), e.getValue()));
+            }
+        }
+        toStart.forEach(executor::execute);
+    }
+
+    private void run(String host, Job job) {
+        try {
+            job.download.run();
+            job.result.complete(null);
+        } catch (Throwable e) {
+            // errors have to complete the job too, otherwise the aggregated future would never complete
+            log.error("Failed to download {}", job.description, e);
+            job.result.completeExceptionally(e);
+        } finally {
+            synchronized (this) {
+                active--;
+                activeByHost.merge(host, -1, Integer::sum);
+            }
+            scheduleNext();
+        }
+    }
+
+    static CompletableFuture<Void> aggregate(List<CompletableFuture<Void>> results) {
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+                .handle((ignored, error) -> {
+                    if (error == null) {
+                        return null;
+                    }
+                    List<Throwable> failures = new ArrayList<>();
+                    for (CompletableFuture<Void> result : results) {
+                        try {
+                            result.join();
+                        } catch (CompletionException e) {
+                            failures.add(e.getCause());
+                        }
+                    }
+                    PigException exception =
+                            new PigException(failures.size() + " out of " + results.size() + " downloads failed");
+                    failures.forEach(exception::addSuppressed);
+                    throw exception;
+                });
+    }
+
+    private static String hostOf(String url) {
+        String host = URI.create(url).getHost();
+        return host == null ? "" : host;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static class Job {
+        private final String description;
+        private final Runnable download;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private Job(String description, Runnable download) {
+            this.description = description;
+            this.download = download;
+        }
+    }
+}
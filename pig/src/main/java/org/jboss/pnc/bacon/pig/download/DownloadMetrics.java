@@ -0,0 +1,187 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Download statistics of the whole run: throughput, time to first byte, retries and failures,
+ * in total and per host, to spot slow mirrors and tune the download concurrency.
+ * <p>
+ * The machine-readable summary is logged by {@link #logSummary()} when the command finishes.
+ */
+public class DownloadMetrics {
+    private static final Logger log = LoggerFactory.getLogger(DownloadMetrics.class);
+
+    private static final int SLOWEST_TRANSFERS = 10;
+
+    private static final DownloadMetrics instance = new DownloadMetrics();
+
+    private final long startMillis = System.currentTimeMillis();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicInteger started = new AtomicInteger();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+    private final AtomicInteger cacheHits = new AtomicInteger();
+    private final ConcurrentLinkedQueue<TransferMetrics> finished = new ConcurrentLinkedQueue<>();
+
+    DownloadMetrics() {
+    }
+
+    public static DownloadMetrics instance() {
+        return instance;
+    }
+
+    public TransferMetrics start(URI url) {
+        started.incrementAndGet();
+        return new TransferMetrics(this, url);
+    }
+
+    public void cacheHit() {
+        cacheHits.incrementAndGet();
+    }
+
+    /**
+     * Log the summary if anything was downloaded or taken from the artifact cache,
+     * regardless of the way the files were downloaded
+     */
+    public void logSummary() {
+        if (started.get() > 0 || cacheHits.get() > 0) {
+            log.info("Download summary: {}", summaryAsJson());
+        }
+    }
+
+    void transferred(long byteCount) {
+        bytes.addAndGet(byteCount);
+    }
+
+    void retried() {
+        retries.incrementAndGet();
+    }
+
+    void finished(TransferMetrics transfer) {
+        (transfer.isFailed() ? failed : succeeded).incrementAndGet();
+        finished.add(transfer);
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public int getSucceeded() {
+        return succeeded.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public int getRetries() {
+        return retries.get();
+    }
+
+    public int getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public int getInProgress() {
+        return started.get() - succeeded.get() - failed.get();
+    }
+
+    public Map<String, Object> summary() {
+        List<TransferMetrics> transfers = new ArrayList<>(finished);
+        long duration = Math.max(System.currentTimeMillis() - startMillis, 1);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("files", succeeded.get());
+        summary.put("failed", failed.get());
+        summary.put("cacheHits", cacheHits.get());
+        summary.put("retries", retries.get());
+        summary.put("bytes", bytes.get());
+        summary.put("durationMillis", duration);
+        summary.put("bytesPerSecond", bytes.get() * 1000 / duration);
+
+        Map<String, Object> hosts = new TreeMap<>();
+        transfers.stream()
+                .collect(groupingBy(TransferMetrics::getHost))
+                .forEach((host, hostTransfers) -> hosts.put(host, hostSummary(hostTransfers)));
+        summary.put("hosts", hosts);
+
+        summary.put("slowest", transfers.stream()
+                .filter(t -> !t.isFailed())
+                .sorted(Comparator.comparingLong(TransferMetrics::getBytesPerSecond))
+                .limit(SLOWEST_TRANSFERS)
+                .map(DownloadMetrics::transferSummary)
+                .collect(toList()));
+        return summary;
+    }
+
+    public String summaryAsJson() {
+        try {
+            return new ObjectMapper().writeValueAsString(summary());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize download summary", e);
+        }
+    }
+
+    private static Map<String, Object> hostSummary(List<TransferMetrics> transfers) {
+        long bytes = transfers.stream().mapToLong(TransferMetrics::getBytes).sum();
+        long duration = transfers.stream().mapToLong(TransferMetrics::getDurationMillis).sum();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("files", transfers.size());
+        summary.put("failed", transfers.stream().filter(TransferMetrics::isFailed).count());
+        summary.put("retries", transfers.stream().mapToInt(TransferMetrics::getRetries).sum());
+        summary.put("bytes", bytes);
+        summary.put("bytesPerSecondPerTransfer", bytes * 1000 / Math.max(duration, 1));
+        summary.put("averageTimeToFirstByteMillis", transfers.stream()
+                .mapToLong(TransferMetrics::getTimeToFirstByteMillis)
+                .filter(ttfb -> ttfb >= 0)
+                .average()
+                .orElse(-1));
+        return summary;
+    }
+
+    private static Map<String, Object> transferSummary(TransferMetrics transfer) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("url", transfer.getUrl().toString());
+        summary.put("bytes", transfer.getBytes());
+        summary.put("durationMillis", transfer.getDurationMillis());
+        summary.put("timeToFirstByteMillis", transfer.getTimeToFirstByteMillis());
+        summary.put("bytesPerSecond", transfer.getBytesPerSecond());
+        summary.put("retries", transfer.getRetries());
+        return summary;
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import org.jboss.pnc.bacon.pig.utils.DaemonThreadFactory;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live progress line of a batch download, printed to the standard error every second.
+ * The line is only printed in an interactive console, it would clutter redirected output.
+ * The machine-readable summary of all the downloads is logged by {@link DownloadMetrics} when the command finishes
+ */
+public class DownloadProgress implements AutoCloseable {
+    private static final long MB = 1024 * 1024;
+
+    private final DownloadMetrics metrics = DownloadMetrics.instance();
+    private final boolean interactive = System.console() != null;
+    private final PrintStream out = System.err;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("pig-download-progress"));
+
+    private final int fileCount;
+    private final int initialDone;
+    private final long initialBytes;
+    private final long startMillis = System.currentTimeMillis();
+
+    private DownloadProgress(int fileCount) {
+        this.fileCount = fileCount;
+        this.initialDone = done();
+        this.initialBytes = metrics.getBytes();
+    }
+
+    public static DownloadProgress start(int fileCount) {
+        DownloadProgress progress = new DownloadProgress(fileCount);
+        if (progress.interactive) {
+            progress.scheduler.scheduleAtFixedRate(progress::print, 1, 1, TimeUnit.SECONDS);
+        }
+        return progress;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        if (interactive) {
+            print();
+            out.println();
+        }
+    }
+
+    private void print() {
+        long bytes = metrics.getBytes() - initialBytes;
+        long duration = Math.max(System.currentTimeMillis() - startMillis, 1);
+        out.printf("\r[downloads] %d/%d files, %d MB, %.1f MB/s, %d in progress, %d failed, %d retries   ",
+                done() - initialDone, fileCount,
+                bytes / MB,
+                bytes * 1000.0 / duration / MB,
+                metrics.getInProgress(),
+                metrics.getFailed(),
+                metrics.getRetries());
+        out.flush();
+    }
+
+    private int done() {
+        return metrics.getSucceeded() + metrics.getFailed() + metrics.getCacheHits();
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.CertificateException;
+
+/**
+ * Classification of download failures
+ */
+public enum FailureType {
+    /**
+     * SSL handshake or certificate verification failed.
+     * Other SSL failures, e.g. a connection reset on an established SSL connection, are {@link #IO} failures
+     */
+    TLS,
+    /**
+     * the server responded with an unexpected status
+     */
+    HTTP,
+    /**
+     * connection problems, timeouts and any other failures
+     */
+    IO;
+
+    public static FailureType of(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SSLHandshakeException
+                    || cause instanceof SSLPeerUnverifiedException
+                    || cause instanceof CertPathValidatorException
+                    || cause instanceof CertificateException) {
+                return TLS;
+            }
+            if (cause instanceof HttpStatusException) {
+                return HTTP;
+            }
+        }
+        return IO;
+    }
+}
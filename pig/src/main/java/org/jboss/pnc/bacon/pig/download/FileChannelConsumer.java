@@ -0,0 +1,136 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.FileContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Non-blocking response consumer that writes the response body straight into a {@link FileChannel}.
+ * <p>
+ * If the connection exposes the raw socket data ({@link FileContentDecoder}), the content is transferred
+ * to the file without copying it through the heap. Otherwise, e.g. for TLS or chunked responses,
+ * it goes through a single reused direct buffer and the checksums are computed on the way.
+ * <p>
+ * The result are the checksums of the file or {@code null} if any part of the file was transferred
+ * directly and the checksums have to be computed from the file.
+ */
+class FileChannelConsumer extends AbstractAsyncResponseConsumer<Checksums> {
+    private static final Logger log = LoggerFactory.getLogger(FileChannelConsumer.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final URI url;
+    private final File target;
+    private final File partFile;
+    private final TransferMetrics transfer;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Checksums.Calculator checksums = new Checksums.Calculator();
+    private boolean transferredDirectly = false;
+
+    private FileChannel channel;
+    private long position = 0;
+
+    FileChannelConsumer(URI url, File target, TransferMetrics transfer) {
+        this.url = url;
+        this.target = target;
+        this.transfer = transfer;
+        this.partFile = new File(target.getPath() + ResumableDownload.PART_SUFFIX);
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) throws IOException {
+        transfer.firstByte();
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode < 200 || statusCode > 299) {
+            throw new HttpStatusException(url, statusCode);
+        }
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) throws IOException {
+        openChannel();
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        if (decoder instanceof FileContentDecoder) {
+            long transferred = ((FileContentDecoder) decoder).transfer(channel, position, Integer.MAX_VALUE);
+            if (transferred > 0) {
+                position += transferred;
+                transferredDirectly = true;
+                transfer.transferred(transferred);
+            }
+            return;
+        }
+        while (decoder.read(buffer) > 0) {
+            buffer.flip();
+            checksums.update(buffer);
+            transfer.transferred(buffer.remaining());
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+
+    @Override
+    protected Checksums buildResult(HttpContext context) throws IOException {
+        if (channel == null) {
+            // response without a body
+            openChannel();
+        }
+        channel.close();
+        Files.move(partFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return transferredDirectly ? null : checksums.checksums();
+    }
+
+    @Override
+    protected void releaseResources() {
+        if (channel != null && channel.isOpen()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close {}", partFile, e);
+            }
+        }
+    }
+
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(partFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Download of a single file that survives dropped connections.
+ * <p>
+ * The content is written to a {@code .part} file next to the target and moved to the target once complete.
+ * A subsequent attempt continues from the end of the part file using a {@code Range} request.
+ * The {@code If-Range} header, with the ETag or Last-Modified date of the first response, makes sure
+ * the remaining part comes from the same version of the file. If the file changed in the meantime,
+ * the server sends the whole file and the download starts over.
+ */
+public class ResumableDownload {
+    private static final Logger log = LoggerFactory.getLogger(ResumableDownload.class);
+
+    public static final String PART_SUFFIX = ".part";
+    private static final String VALIDATOR_SUFFIX = ".part.validator";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final URI url;
+    private final File target;
+    private final File partFile;
+    private final File validatorFile;
+    private int attempts = 0;
+    private long bytesWritten = 0;
+
+    public ResumableDownload(URI url, File target) {
+        this.url = url;
+        this.target = target;
+        partFile = new File(target.getPath() + PART_SUFFIX);
+        validatorFile = new File(target.getPath() + VALIDATOR_SUFFIX);
+    }
+
+    /**
+     * Download the file, or its remaining part if a previous attempt was interrupted
+     *
+     * @param client http client to use
+     * @param transfer metrics of the transfer
+     * @return checksums of the downloaded file, computed while the file was written
+     * @throws IOException on failure, the downloaded part is kept for the next attempt
+     */
+    public Checksums attempt(CloseableHttpClient client, TransferMetrics transfer) throws IOException {
+        if (++attempts > 1) {
+            transfer.retried();
+        }
+        long offset = partFile.length();
+        String validator = readValidator();
+
+        HttpGet request = new HttpGet(url);
+        boolean resuming = offset > 0 && validator != null;
+        if (resuming) {
+            log.info("Resuming download of {} from byte {}", url, offset);
+            request.setHeader(HttpHeaders.RANGE, "bytes=" + offset + "-");
+            request.setHeader(HttpHeaders.IF_RANGE, validator);
+        }
+
+        try (CloseableHttpResponse response = client.execute(request)) {
+            transfer.firstByte();
+            int statusCode = response.getStatusLine().getStatusCode();
+            boolean append;
+            if (statusCode == HttpStatus.SC_PARTIAL_CONTENT && resuming) {
+                verifyContentRange(response, offset);
+                append = true;
+            } else if (statusCode == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE && resuming) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                discardPart();
+                throw new IOException("Server rejected the range request for " + url + ", the download will start over");
+            } else if (statusCode >= 200 && statusCode <= 299) {
+                if (resuming) {
+                    log.info("{} changed since the previous attempt or doesn't support resuming, downloading it from the start", url);
+                }
+                writeValidator(validatorOf(response));
+                append = false;
+            } else {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new HttpStatusException(url, statusCode);
+            }
+
+            Checksums.Calculator checksums = new Checksums.Calculator();
+            if (append) {
+                // the already downloaded part has to be read once to make the checksums cover the whole file
+                checksums.update(partFile);
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream input = response.getEntity().getContent();
+                 OutputStream output = new FileOutputStream(partFile, append)) {
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                    bytesWritten += read;
+                    checksums.update(buffer, 0, read);
+                    transfer.transferred(read);
+                }
+            }
+
+            Files.move(partFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(validatorFile.toPath());
+            return checksums.checksums();
+        }
+    }
+
+    /**
+     * @return number of bytes written to the part file by all the attempts so far
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * remove the leftovers of the download, to be used when the download is abandoned
+     */
+    public void discardPart() throws IOException {
+        Files.deleteIfExists(partFile.toPath());
+        Files.deleteIfExists(validatorFile.toPath());
+    }
+
+    private void verifyContentRange(HttpResponse response, long offset) throws IOException {
+        Header contentRange = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+        String expectedPrefix = "bytes " + offset + "-";
+        if (contentRange == null || !contentRange.getValue().startsWith(expectedPrefix)) {
+            EntityUtils.consumeQuietly(response.getEntity());
+            discardPart();
+            throw new IOException("Unexpected content range for " + url + ": " +
+                    (contentRange == null ? null : contentRange.getValue()) + ", the download will start over");
+        }
+    }
+
+    /**
+     * only strong ETags can be used in If-Range, Last-Modified is used as a fallback
+     */
+    private static String validatorOf(HttpResponse response) {
+        Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+        if (etag != null && !etag.getValue().startsWith("W/")) {
+            return etag.getValue();
+        }
+        Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+        return lastModified == null ? null : lastModified.getValue();
+    }
+
+    private String readValidator() throws IOException {
+        if (!validatorFile.exists()) {
+            return null;
+        }
+        return new String(Files.readAllBytes(validatorFile.toPath()), StandardCharsets.UTF_8).trim();
+    }
+
+    private void writeValidator(String validator) throws IOException {
+        if (validator == null) {
+            Files.deleteIfExists(validatorFile.toPath());
+        } else {
+            Files.write(validatorFile.toPath(), validator.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
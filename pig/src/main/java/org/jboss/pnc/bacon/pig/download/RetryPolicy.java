@@ -0,0 +1,145 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.jboss.pnc.bacon.config.PigConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded retries with exponential backoff for downloads interrupted by transient failures.
+ * <p>
+ * A read timeout is only retried if the failed attempt stored some of the content, a server that stalls
+ * without sending anything would stall the next attempt too.
+ * No retry is started after the time limit for the whole download has passed, counted from the creation
+ * of the policy. A policy is meant to be used for a single download.
+ */
+public class RetryPolicy {
+    private static final Logger log = LoggerFactory.getLogger(RetryPolicy.class);
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxTotalMillis;
+    private final long startNanos = System.nanoTime();
+
+    public RetryPolicy(int maxAttempts, long initialBackoffMillis) {
+        this(maxAttempts, initialBackoffMillis, Long.MAX_VALUE);
+    }
+
+    public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxTotalMillis) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxTotalMillis = maxTotalMillis;
+    }
+
+    public static RetryPolicy fromConfig() {
+        PigConfig config = PigConfig.instance();
+        return new RetryPolicy(config.getDownloadAttempts(),
+                config.getDownloadRetryBackoffMillis(),
+                TimeUnit.MINUTES.toMillis(config.getDownloadMaxTotalMinutes()));
+    }
+
+    public interface Attempt<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Run the attempt until it succeeds, fails with a non-retryable error or the attempts are exhausted.
+     * Read timeouts are not retried, as there is no way to tell if the attempt made any progress
+     *
+     * @see #execute(String, LongSupplier, Attempt)
+     */
+    public <T> T execute(String description, Attempt<T> attempt) throws IOException {
+        return execute(description, () -> 0L, attempt);
+    }
+
+    /**
+     * Run the attempt until it succeeds, fails with a non-retryable error, the attempts are exhausted
+     * or the time limit passes
+     *
+     * @param description description of the action for the logs
+     * @param progress number of bytes stored so far, a read timeout is retried only if the attempt increased it
+     * @param attempt the action
+     * @return the result of the successful attempt
+     * @throws IOException the failure of the last attempt
+     */
+    public <T> T execute(String description, LongSupplier progress, Attempt<T> attempt) throws IOException {
+        long backoff = initialBackoffMillis;
+        for (int attemptNo = 1; ; attemptNo++) {
+            long progressBefore = progress.getAsLong();
+            try {
+                return attempt.run();
+            } catch (IOException e) {
+                boolean madeProgress = progress.getAsLong() > progressBefore;
+                if (attemptNo >= maxAttempts || !isRetryable(e, madeProgress)) {
+                    throw e;
+                }
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                if (elapsedMillis + backoff > maxTotalMillis) {
+                    log.warn("Attempt {} of {} to {} failed: {}. Giving up, the time limit of {} ms would be exceeded",
+                            attemptNo, maxAttempts, description, e.getMessage(), maxTotalMillis);
+                    throw e;
+                }
+                log.warn("Attempt {} of {} to {} failed: {}. Will retry in {} ms",
+                        attemptNo, maxAttempts, description, e.getMessage(), backoff);
+                sleep(backoff);
+                backoff *= 2;
+            }
+        }
+    }
+
+    /**
+     * only failures that are likely to go away when repeated are retried:
+     * dropped connections, connect timeouts, read timeouts of attempts that made progress and server-side errors
+     *
+     * @param madeProgress if the failed attempt stored some of the content
+     */
+    public static boolean isRetryable(IOException e, boolean madeProgress) {
+        if (e instanceof HttpStatusException) {
+            return ((HttpStatusException) e).isServerError();
+        }
+        if (e instanceof SSLHandshakeException || e instanceof SSLPeerUnverifiedException) {
+            return false;
+        }
+        if (e instanceof InterruptedIOException) {
+            if (e instanceof ConnectTimeoutException) {
+                return true;
+            }
+            return e instanceof SocketTimeoutException && madeProgress;
+        }
+        return true;
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry the download");
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.jboss.pnc.bacon.pig.utils.DaemonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Download of a single large file over multiple connections.
+ * <p>
+ * The file is split into byte ranges fetched in parallel and written with positional writes
+ * into a file preallocated to the final size. Each range is retried separately, continuing from
+ * where its previous attempt stopped.
+ * <p>
+ * Works only for servers that advertise {@code Accept-Ranges: bytes} and the content length,
+ * {@link #isSupported()} should be checked before {@link #download(TransferMetrics)}.
+ */
+public class SegmentedDownload {
+    private static final Logger log = LoggerFactory.getLogger(SegmentedDownload.class);
+
+    /**
+     * files are not split into segments smaller than that
+     */
+    private static final long DEFAULT_MIN_SEGMENT_SIZE = 8 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CloseableHttpClient client;
+    private final URI url;
+    private final File target;
+    private final File partFile;
+    private final int maxSegments;
+    private final long minSegmentSize;
+    private final RetryPolicy retryPolicy;
+
+    private long contentLength = -1;
+    private String etag;
+    private boolean supported;
+
+    public SegmentedDownload(CloseableHttpClient client, URI url, File target, int maxSegments, RetryPolicy retryPolicy) {
+        this(client, url, target, maxSegments, DEFAULT_MIN_SEGMENT_SIZE, retryPolicy);
+    }
+
+    SegmentedDownload(CloseableHttpClient client,
+                      URI url,
+                      File target,
+                      int maxSegments,
+                      long minSegmentSize,
+                      RetryPolicy retryPolicy) {
+        this.client = client;
+        this.url = url;
+        this.target = target;
+        this.partFile = new File(target.getPath() + ResumableDownload.PART_SUFFIX);
+        this.maxSegments = maxSegments;
+        this.minSegmentSize = minSegmentSize;
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Checks if the server can serve the file in byte ranges
+     *
+     * @return true if segmented download is possible
+     * @throws IOException if the HEAD request fails
+     */
+    public boolean isSupported() throws IOException {
+        try (CloseableHttpResponse response = client.execute(new HttpHead(url))) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode < 200 || statusCode > 299) {
+                throw new HttpStatusException(url, statusCode);
+            }
+            Header acceptRanges = response.getFirstHeader(HttpHeaders.ACCEPT_RANGES);
+            Header length = response.getFirstHeader(HttpHeaders.CONTENT_LENGTH);
+            Header etagHeader = response.getFirstHeader(HttpHeaders.ETAG);
+
+            supported = acceptRanges != null && "bytes".equalsIgnoreCase(acceptRanges.getValue().trim())
+                    && length != null;
+            if (supported) {
+                contentLength = Long.parseLong(length.getValue().trim());
+                etag = etagHeader != null && !etagHeader.getValue().startsWith("W/") ? etagHeader.getValue() : null;
+            }
+            return supported;
+        }
+    }
+
+    /**
+     * @return checksums of the downloaded file. As the segments are written out of order,
+     * computing them takes an additional read of the file
+     */
+    public Checksums download(TransferMetrics transfer) throws IOException {
+        if (!supported) {
+            throw new IllegalStateException("Segmented download of " + url + " is not supported by the server");
+        }
+        List<Segment> segments = split();
+        log.info("Downloading {} ({} bytes) in {} segments", url, contentLength, segments.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(segments.size(), new DaemonThreadFactory("pig-segment"));
+        try (RandomAccessFile file = new RandomAccessFile(partFile, "rw")) {
+            file.setLength(contentLength);
+            FileChannel channel = file.getChannel();
+
+            List<CompletableFuture<Void>> results = new ArrayList<>();
+            for (Segment segment : segments) {
+                results.add(CompletableFuture.runAsync(() -> downloadSegment(channel, segment, transfer), executor));
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+            channel.force(false);
+        } catch (CompletionException e) {
+            Files.deleteIfExists(partFile.toPath());
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException
+                    ? (IOException) cause
+                    : new IOException("Segmented download of " + url + " failed", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Files.move(partFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return Checksums.of(target);
+    }
+
+    private List<Segment> split() {
+        int segmentCount = (int) Math.max(1, Math.min(maxSegments, contentLength / minSegmentSize));
+        long segmentSize = contentLength / segmentCount;
+        List<Segment> segments = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            long start = i * segmentSize;
+            long end = i == segmentCount - 1 ? contentLength - 1 : start + segmentSize - 1;
+            segments.add(new Segment(start, end));
+        }
+        return segments;
+    }
+
+    private void downloadSegment(FileChannel channel, Segment segment, TransferMetrics transfer) {
+        try {
+            retryPolicy.execute("download bytes " + segment + " of " + url,
+                    () -> segment.position,
+                    () -> {
+                        attemptSegment(channel, segment, transfer);
+                        return null;
+                    });
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private void attemptSegment(FileChannel channel, Segment segment, TransferMetrics transfer) throws IOException {
+        if (segment.isComplete()) {
+            return;
+        }
+        if (++segment.attempts > 1) {
+            transfer.retried();
+        }
+        HttpGet request = new HttpGet(url);
+        request.setHeader(HttpHeaders.RANGE, "bytes=" + segment.position + "-" + segment.end);
+        if (etag != null) {
+            request.setHeader(HttpHeaders.IF_MATCH, etag);
+        }
+        try (CloseableHttpResponse response = client.execute(request)) {
+            transfer.firstByte();
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode != HttpStatus.SC_PARTIAL_CONTENT) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new HttpStatusException(url, statusCode);
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            try (InputStream input = response.getEntity().getContent()) {
+                int read;
+                while (!segment.isComplete() && (read = input.read(buffer)) != -1) {
+                    int toWrite = (int) Math.min(read, segment.remaining());
+                    byteBuffer.clear().limit(toWrite);
+                    while (byteBuffer.hasRemaining()) {
+                        segment.position += channel.write(byteBuffer, segment.position);
+                    }
+                    transfer.transferred(toWrite);
+                }
+            }
+        }
+        if (!segment.isComplete()) {
+            throw new IOException("Connection closed before bytes " + segment + " of " + url + " were downloaded");
+        }
+    }
+
+    private static class Segment {
+        private long position;
+        private final long end;
+        private int attempts = 0;
+
+        private Segment(long start, long end) {
+            this.position = start;
+            this.end = end;
+        }
+
+        private boolean isComplete() {
+            return position > end;
+        }
+
+        private long remaining() {
+            return end - position + 1;
+        }
+
+        @Override
+        public String toString() {
+            return position + "-" + end;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.download;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timing and volume of a single file transfer, see {@link DownloadMetrics}
+ */
+public class TransferMetrics {
+    private final DownloadMetrics parent;
+    private final URI url;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicInteger retries = new AtomicInteger();
+    private volatile long firstByteNanos = -1;
+    private volatile long endNanos = -1;
+    private volatile FailureType failure;
+
+    TransferMetrics(DownloadMetrics parent, URI url) {
+        this.parent = parent;
+        this.url = url;
+    }
+
+    /**
+     * to be called when the response headers of the (first) request arrive
+     */
+    public void firstByte() {
+        if (firstByteNanos < 0) {
+            firstByteNanos = System.nanoTime();
+        }
+    }
+
+    public void transferred(long byteCount) {
+        bytes.addAndGet(byteCount);
+        parent.transferred(byteCount);
+    }
+
+    /**
+     * to be called when the transfer is restarted from scratch, the bytes counted so far are subtracted
+     * so that they are not counted twice
+     */
+    public void discardTransferred() {
+        long discarded = bytes.getAndSet(0);
+        parent.transferred(-discarded);
+    }
+
+    public void retried() {
+        retries.incrementAndGet();
+        parent.retried();
+    }
+
+    public void finished() {
+        endNanos = System.nanoTime();
+        parent.finished(this);
+    }
+
+    public void failed(FailureType failureType) {
+        endNanos = System.nanoTime();
+        failure = failureType;
+        parent.finished(this);
+    }
+
+    public URI getUrl() {
+        return url;
+    }
+
+    public String getHost() {
+        return url.getHost() == null ? "" : url.getHost();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public int getRetries() {
+        return retries.get();
+    }
+
+    public FailureType getFailure() {
+        return failure;
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    public long getDurationMillis() {
+        long end = endNanos < 0 ? System.nanoTime() : endNanos;
+        return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+    }
+
+    /**
+     * @return time to the response headers in milliseconds or -1 if no response was received
+     */
+    public long getTimeToFirstByteMillis() {
+        return firstByteNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(firstByteNanos - startNanos);
+    }
+
+    public long getBytesPerSecond() {
+        long duration = Math.max(getDurationMillis(), 1);
+        return getBytes() * 1000 / duration;
+    }
+}
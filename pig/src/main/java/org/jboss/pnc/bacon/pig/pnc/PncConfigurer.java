@@ -2,10 +2,14 @@ package org.jboss.pnc.bacon.pig.pnc;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.jboss.pnc.bacon.common.exception.TodoException;
+import org.jboss.pnc.bacon.config.PigConfig;
+import org.jboss.pnc.bacon.pig.PigException;
 import org.jboss.pnc.bacon.pig.config.build.BuildConfig;
+import org.jboss.pnc.bacon.pig.config.build.BuildGraph;
 import org.jboss.pnc.bacon.pig.config.build.Config;
 import org.jboss.pnc.bacon.pig.config.build.Product;
 import org.jboss.pnc.bacon.pig.utils.CollectionUtils;
+import org.jboss.pnc.bacon.pig.utils.DaemonThreadFactory;
 import org.jboss.pnc.dto.BuildConfiguration;
 import org.jboss.pnc.dto.ProductMilestone;
 import org.jboss.pnc.dto.ProductVersion;
@@ -16,10 +20,17 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -36,7 +47,7 @@ public class PncConfigurer {
     private static final Logger log = LoggerFactory.getLogger(PncConfigurer.class);
     public static final String LIST_PRODUCTS = "list-products";
 
-    private PncRestDao dao = new PncRestDao();
+    private final PncRestDao dao;
 
     private final Config config;
     private int productId;
@@ -44,9 +55,19 @@ public class PncConfigurer {
     private int milestoneId;
     private int buildGroupId;
     private List<BuildConfigData> configs;
+    private Map<String, BuildConfigData> configsByName;
+    // configs are imported in parallel, the first one to need a project or repository looks it up (or creates it),
+    // the others wait for the result, without blocking the map
+    private final Map<String, CompletableFuture<Integer>> projectIds = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<SCMRepository>> repositories = new ConcurrentHashMap<>();
 
     public PncConfigurer(Config config) {
+        this(config, new PncRestDao());
+    }
+
+    PncConfigurer(Config config, PncRestDao dao) {
         this.config = config;
+        this.dao = dao;
     }
 
     public PncImportResult performImport() {
@@ -62,6 +83,8 @@ public class PncConfigurer {
         buildGroupId = getOrGenerateBuildGroup();
 
         configs = getAddOrUpdateBuildConfigs();
+        configsByName = configs.stream()
+                .collect(Collectors.toMap(BuildConfigData::getName, Function.identity(), (first, second) -> first));
         log.debug("Setting up build dependencies");
         setUpBuildDependencies();
 
@@ -109,12 +132,11 @@ public class PncConfigurer {
     }
 
     private Integer getConfigIdByName(String name) {
-        Optional<BuildConfigData> maybeConfig = configs.stream()
-                .filter(c -> c.getName().equals(name))
-                .findAny();
-        return maybeConfig
-                .orElseThrow(() -> new RuntimeException("Build config name " + name + " used to reference a dependency but no such build config defined"))
-                .getId();
+        BuildConfigData config = configsByName.get(name);
+        if (config == null) {
+            throw new RuntimeException("Build config name " + name + " used to reference a dependency but no such build config defined");
+        }
+        return config.getId();
     }
 
 
@@ -133,42 +155,123 @@ public class PncConfigurer {
         return updateOrCreate(currentConfigs, config.getBuilds());
     }
 
-    private List<BuildConfigData> updateOrCreate(
+    /**
+     * Creates or updates the build configs in PNC in parallel, on at most
+     * {@link PigConfig#getPncImportConcurrency()} threads.
+     * <p>
+     * Configs are imported level by level of the build dependency graph, so that a config is only imported
+     * once all its dependencies are in PNC. Configs depending on a config that failed to be imported are skipped.
+     * The outcome is logged in the order of build-config.yaml and all failures are reported in a single exception.
+     */
+    List<BuildConfigData> updateOrCreate(
             List<BuildConfiguration> currentConfigs,
             List<BuildConfig> builds) {
-        List<BuildConfigData> buildList = new ArrayList<>();
-        for (BuildConfig bc : builds) {
-            BuildConfigData data = new BuildConfigData(bc);
-            for (BuildConfiguration config : currentConfigs) {
-                if (config.getName().equals(bc.getName())) {
-                    data.setOldConfig(config);
-                    if (data.shouldBeUpdated()) {
-                        updateBuildConfig(data);
+        Map<String, BuildConfiguration> currentConfigsByName = currentConfigs.stream()
+                .collect(Collectors.toMap(BuildConfiguration::getName, Function.identity(), (first, second) -> first));
+        BuildGraph graph = BuildGraph.of(builds);
+
+        int concurrency = Math.max(1, PigConfig.instance().getPncImportConcurrency());
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, new DaemonThreadFactory("pig-pnc-import"));
+        Map<String, CompletableFuture<ImportedConfig>> results = new HashMap<>();
+        try {
+            for (List<BuildConfig> level : graph.getLevels()) {
+                List<CompletableFuture<ImportedConfig>> levelResults = new ArrayList<>();
+                for (BuildConfig bc : level) {
+                    Optional<String> failedDependency = failedDependency(bc, results);
+                    CompletableFuture<ImportedConfig> result;
+                    if (failedDependency.isPresent()) {
+                        result = new CompletableFuture<>();
+                        result.completeExceptionally(new PigException("Build config " + bc.getName() +
+                                " was not imported because its dependency " + failedDependency.get() +
+                                " failed to be imported"));
+                    } else {
+                        result = CompletableFuture.supplyAsync(
+                                () -> updateOrCreate(bc, currentConfigsByName.get(bc.getName())),
+                                executor
+                        );
                     }
+                    results.put(bc.getName(), result);
+                    levelResults.add(result);
                 }
+                CompletableFuture.allOf(levelResults.toArray(new CompletableFuture[0]))
+                        .handle((ignored, error) -> null)
+                        .join();
             }
-            //Check if build exists already (globally)
-            //True = Add to BCS and update BC (maybe ask?)
-            Optional<BuildConfiguration> matchedBuildConfig = dao.getBuildConfigByName(bc.getName());
-
-            if (matchedBuildConfig.isPresent()) {
-                log.debug("Found matching build config for {}", bc.getName());
-                data.setOldConfig(matchedBuildConfig.get());
-                if (data.shouldBeUpdated()) {
-                    updateBuildConfig(data);
-                }
-            } else {
-                //False = Create new project/BC
-                Integer configId = createBuildConfig(data.getNewConfig());
-                data.setId(configId);
-                log.debug("Didn't find matching build config for {}", bc.getName());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<BuildConfigData> buildList = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (BuildConfig bc : builds) {
+            try {
+                ImportedConfig imported = results.get(bc.getName()).join();
+                log.debug("{} build config {}", imported.action, bc.getName());
+                buildList.add(imported.data);
+            } catch (CompletionException e) {
+                log.error("Failed to import build config {}: {}", bc.getName(), e.getCause().getMessage());
+                failures.add(e.getCause());
             }
-            data.setModified(true);      // TODO: it looks cumbersome that each data is marked as modified
-            buildList.add(data);
+        }
+        if (!failures.isEmpty()) {
+            PigException exception = new PigException(
+                    failures.size() + " out of " + builds.size() + " build configurations failed to be imported");
+            failures.forEach(exception::addSuppressed);
+            throw exception;
         }
         return buildList;
     }
 
+    private static Optional<String> failedDependency(BuildConfig bc,
+                                                     Map<String, CompletableFuture<ImportedConfig>> results) {
+        return bc.getDependencies().stream()
+                .filter(dependency -> {
+                    CompletableFuture<ImportedConfig> result = results.get(dependency);
+                    return result != null && result.isCompletedExceptionally();
+                })
+                .findFirst();
+    }
+
+    private ImportedConfig updateOrCreate(BuildConfig bc, BuildConfiguration currentConfig) {
+        BuildConfigData data = new BuildConfigData(bc);
+        String action = "Unchanged";
+        if (currentConfig != null) {
+            data.setOldConfig(currentConfig);
+            if (data.shouldBeUpdated()) {
+                updateBuildConfig(data);
+                action = "Updated";
+            }
+        }
+        //Check if build exists already (globally)
+        //True = Add to BCS and update BC (maybe ask?)
+        Optional<BuildConfiguration> matchedBuildConfig = dao.getBuildConfigByName(bc.getName());
+
+        if (matchedBuildConfig.isPresent()) {
+            data.setOldConfig(matchedBuildConfig.get());
+            if (data.shouldBeUpdated()) {
+                updateBuildConfig(data);
+                action = "Updated";
+            }
+        } else {
+            //False = Create new project/BC
+            Integer configId = createBuildConfig(data.getNewConfig());
+            data.setId(configId);
+            action = "Created";
+        }
+        data.setModified(true);      // TODO: it looks cumbersome that each data is marked as modified
+        return new ImportedConfig(data, action);
+    }
+
+    private static class ImportedConfig {
+        private final BuildConfigData data;
+        private final String action;
+
+        private ImportedConfig(BuildConfigData data, String action) {
+            this.data = data;
+            this.action = action;
+        }
+    }
+
     private Integer createBuildConfig(BuildConfig buildConfig) {
         Integer projectId = getOrGenerateProject(buildConfig.getProject());
 
@@ -183,9 +286,36 @@ public class PncConfigurer {
     }
 
     private Integer getOrGenerateProject(String projectName) {
-        return dao.getProjectByName(projectName)
-                .map(Project::getId)
-                .orElseGet(() -> generateProject(projectName));
+        return getOrLoad(projectIds, projectName,
+                name -> dao.getProjectByName(name)
+                        .map(Project::getId)
+                        .orElseGet(() -> generateProject(name))
+        );
+    }
+
+    /**
+     * Loads the value for the key once, concurrent callers for the same key wait for the first one.
+     * A failed load is not cached, so that the next caller retries it.
+     */
+    private static <T> T getOrLoad(Map<String, CompletableFuture<T>> cache, String key, Function<String, T> loader) {
+        CompletableFuture<T> loading = new CompletableFuture<>();
+        CompletableFuture<T> existing = cache.putIfAbsent(key, loading);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            T value = loader.apply(key);
+            loading.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            cache.remove(key, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
     }
 
 //    private Integer createBuildConfigFromExternalUrl(Integer projectId, BuildConfig buildConfig) {
@@ -215,8 +345,10 @@ public class PncConfigurer {
 
 
     private SCMRepository getOrGenerateRepository(BuildConfig buildConfig) {
-        return dao.getRepositoryConfigurationForBuildConfigByScmUri(buildConfig.getShortScmURIPath())
-                .orElseGet(() -> createRepository(buildConfig));
+        return getOrLoad(repositories, buildConfig.getShortScmURIPath(),
+                scmUri -> dao.getRepositoryConfigurationForBuildConfigByScmUri(scmUri)
+                        .orElseGet(() -> createRepository(buildConfig))
+        );
     }
 
     private SCMRepository createRepository(BuildConfig buildConfig) {
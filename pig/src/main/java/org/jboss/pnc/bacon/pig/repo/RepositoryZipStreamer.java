@@ -0,0 +1,228 @@
+/**
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.repo;
+
+import org.jboss.pnc.bacon.pig.FileDownloadUtils;
+import org.jboss.pnc.bacon.pig.PigException;
+import org.jboss.pnc.bacon.pig.data.Artifact;
+import org.jboss.pnc.bacon.pig.data.GAV;
+import org.jboss.pnc.bacon.pig.data.GAVFactory;
+import org.jboss.pnc.bacon.pig.data.RepositoryData;
+import org.jboss.pnc.bacon.pig.download.Checksums;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Processes a repository zip while it is being downloaded, without saving it to a temporary file.
+ * <p>
+ * The http response is read through a {@link ZipInputStream}, each entry is (optionally) extracted
+ * to a directory and (optionally) re-packed into a new zip with a different top level directory.
+ * GAVs of the artifacts in the {@code maven-repository} directory are collected on the way.
+ * Checksums of the whole zip are computed from the same stream and verified against the ones from PNC.
+ */
+public class RepositoryZipStreamer {
+    private static final Logger log = LoggerFactory.getLogger(RepositoryZipStreamer.class);
+
+    private static final String REPOSITORY_DIR = "maven-repository/";
+    private static final String[] NON_ARTIFACT_SUFFIXES = {".md5", ".sha1", ".sha256", ".sha512", ".asc"};
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path extractTo;
+    private final File repackTo;
+    private final String repackTopLevelDirectory;
+
+    /**
+     * @param extractTo directory to extract the zip to, null to skip extraction
+     * @param repackTo zip to re-pack the entries to, null to skip re-packing
+     * @param repackTopLevelDirectory top level directory of the re-packed zip, replaces the one of the original zip
+     */
+    public RepositoryZipStreamer(Path extractTo, File repackTo, String repackTopLevelDirectory) {
+        this.extractTo = extractTo;
+        this.repackTo = repackTo;
+        this.repackTopLevelDirectory = repackTopLevelDirectory;
+    }
+
+    public RepositoryData process(Artifact repositoryZip) {
+        URI url = URI.create(repositoryZip.getDownloadUrl());
+        return FileDownloadUtils.process(url, content -> process(url, content, repositoryZip.getChecksums()));
+    }
+
+    RepositoryData process(URI url, InputStream content, Checksums expected) throws IOException {
+        ChecksummingInputStream checksummingContent = new ChecksummingInputStream(content);
+        GAVFactory gavFactory = new GAVFactory();
+        List<GAV> gavs = new ArrayList<>();
+        List<File> files = new ArrayList<>();
+        Path repositoryPath = null;
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try (ZipInputStream zip = new ZipInputStream(checksummingContent);
+             ZipOutputStream repacked = repackTo == null ? null : new ZipOutputStream(new FileOutputStream(repackTo))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                int repositoryDirIdx = name.indexOf(REPOSITORY_DIR);
+                if (repositoryDirIdx >= 0 && repositoryPath == null && extractTo != null) {
+                    repositoryPath = resolve(name.substring(0, repositoryDirIdx + REPOSITORY_DIR.length()));
+                }
+
+                File extracted = extractTo == null || entry.isDirectory() ? null : resolve(name).toFile();
+                if (entry.isDirectory() && extractTo != null) {
+                    Files.createDirectories(resolve(name));
+                }
+                if (repacked != null) {
+                    repacked.putNextEntry(new ZipEntry(repackedName(name)));
+                }
+                if (!entry.isDirectory()) {
+                    copyEntry(zip, extracted, repacked, buffer);
+                    if (extracted != null) {
+                        files.add(extracted);
+                    }
+                    if (repositoryDirIdx >= 0 && isArtifact(name)) {
+                        String artifactPath = name.substring(repositoryDirIdx + REPOSITORY_DIR.length());
+                        gavs.add(gavFactory.fromPath(artifactPath));
+                    }
+                }
+                if (repacked != null) {
+                    repacked.closeEntry();
+                }
+            }
+            // read the central directory to make the checksums cover the whole zip
+            while (checksummingContent.read(buffer) != -1) {
+                // draining
+            }
+        }
+
+        List<String> mismatches = checksummingContent.checksums().mismatches(expected);
+        if (!mismatches.isEmpty()) {
+            throw new PigException("Checksum mismatch for " + url + ": " + String.join(", ", mismatches));
+        }
+        log.info("Processed {}: {} files, {} artifacts", url, files.size(), gavs.size());
+
+        RepositoryData result = new RepositoryData();
+        result.setGavs(gavs);
+        result.setFiles(files);
+        result.setRepositoryPath(repositoryPath);
+        return result;
+    }
+
+    private static void copyEntry(InputStream entry, File extracted, OutputStream repacked, byte[] buffer)
+            throws IOException {
+        OutputStream extractedOutput = null;
+        try {
+            if (extracted != null) {
+                Files.createDirectories(extracted.toPath().getParent());
+                extractedOutput = new FileOutputStream(extracted);
+            }
+            int read;
+            while ((read = entry.read(buffer)) != -1) {
+                if (extractedOutput != null) {
+                    extractedOutput.write(buffer, 0, read);
+                }
+                if (repacked != null) {
+                    repacked.write(buffer, 0, read);
+                }
+            }
+        } finally {
+            if (extractedOutput != null) {
+                extractedOutput.close();
+            }
+        }
+    }
+
+    private Path resolve(String entryName) {
+        Path path = extractTo.resolve(entryName).normalize();
+        if (!path.startsWith(extractTo.normalize())) {
+            throw new PigException("Zip entry " + entryName + " points outside of the target directory");
+        }
+        return path;
+    }
+
+    private String repackedName(String name) {
+        if (repackTopLevelDirectory == null) {
+            return name;
+        }
+        int topLevelDirEnd = name.indexOf('/');
+        return repackTopLevelDirectory + "/" + (topLevelDirEnd < 0 ? name : name.substring(topLevelDirEnd + 1));
+    }
+
+    private static boolean isArtifact(String name) {
+        String fileName = name.substring(name.lastIndexOf('/') + 1);
+        if (fileName.startsWith("maven-metadata")) {
+            return false;
+        }
+        for (String suffix : NON_ARTIFACT_SUFFIXES) {
+            if (fileName.endsWith(suffix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class ChecksummingInputStream extends FilterInputStream {
+        private final Checksums.Calculator calculator = new Checksums.Calculator();
+
+        private ChecksummingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result != -1) {
+                calculator.update(new byte[]{(byte) result}, 0, 1);
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                calculator.update(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // skipped bytes have to be checksummed too
+            byte[] skipped = new byte[(int) Math.min(n, BUFFER_SIZE)];
+            int read = read(skipped, 0, skipped.length);
+            return Math.max(read, 0);
+        }
+
+        private Checksums checksums() {
+            return calculator.checksums();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.jboss.pnc.bacon.pig;
+
+import org.apache.commons.io.FileUtils;
+import org.jboss.pnc.bacon.pig.download.Checksums;
+import org.jboss.pnc.bacon.pig.download.TestHttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileDownloadUtilsTest {
+    private Path workDir;
+    private File target;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workDir = Files.createTempDirectory("file-download-utils-test");
+        target = workDir.resolve("file.zip").toFile();
+        content = new byte[4000];
+        new Random(13).nextBytes(content);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    @Test
+    void shouldFallBackToSingleStreamWithoutAcceptRanges() throws IOException {
+        try (TestHttpServer server = new TestHttpServer(exchange -> TestHttpServer.send(exchange, 200, content))) {
+            Checksums checksums = FileDownloadUtils.downloadTo(server.uri("/file.zip"), target, 4);
+
+            assertEquals(1, server.getRequests("HEAD").size());
+            assertEquals(1, server.getRequests("GET").size());
+            assertNull(server.getRequests("GET").get(0).header("Range"));
+            assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+            assertEquals(Checksums.of(target), checksums);
+        }
+    }
+
+    @Test
+    void shouldKeepFileWithMatchingChecksums() throws IOException {
+        Files.write(target.toPath(), content);
+        Checksums checksums = Checksums.of(target);
+
+        FileDownloadUtils.verify(URI.create("http://host/file.zip"), target, checksums,
+                new Checksums(null, checksums.getSha1(), null));
+
+        assertTrue(target.exists());
+    }
+
+    @Test
+    void shouldRemoveFileWithMismatchingChecksums() throws IOException {
+        Files.write(target.toPath(), content);
+        Checksums checksums = Checksums.of(target);
+
+        PigException error = assertThrows(PigException.class,
+                () -> FileDownloadUtils.verify(URI.create("http://host/file.zip"), target, checksums,
+                        new Checksums("00", null, null)));
+
+        assertEquals("Checksum mismatch for http://host/file.zip: md5: expected 00, got " + checksums.getMd5(),
+                error.getMessage());
+        assertFalse(target.exists());
+    }
+
+    @Test
+    void shouldRemoveDownloadWithMismatchingChecksums() throws IOException {
+        try (TestHttpServer server = new TestHttpServer(exchange -> TestHttpServer.send(exchange, 200, content))) {
+            Checksums expected = new Checksums(null, null, "00");
+
+            assertThrows(PigException.class,
+                    () -> FileDownloadUtils.downloadTo(server.uri("/file.zip"), target, 1, expected));
+
+            assertFalse(target.exists());
+        }
+    }
+}
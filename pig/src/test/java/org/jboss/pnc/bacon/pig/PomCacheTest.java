@@ -0,0 +1,75 @@
+package org.jboss.pnc.bacon.pig;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PomCacheTest {
+    private static final String POM = "<project>" +
+            "<groupId>org.example</groupId><artifactId>lib</artifactId><version>1.0</version>" +
+            "<properties><a>b</a></properties>" +
+            "<dependencies><dependency><groupId>g</groupId><artifactId>a</artifactId></dependency></dependencies>" +
+            "</project>";
+
+    private Path workDir;
+    private File pom;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workDir = Files.createTempDirectory("pom-cache-test");
+        pom = workDir.resolve("pom.xml").toFile();
+        FileUtils.writeStringToFile(pom, POM, StandardCharsets.UTF_8);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    @Test
+    void shouldParseDocumentOnceAndHandOutCopies() {
+        PomCache cache = new PomCache(10, null);
+        int[] parsed = {0};
+
+        Document first = cache.getDocument(pom, file -> {
+            parsed[0]++;
+            return XmlUtils.parse(file);
+        });
+        first.getDocumentElement().removeChild(first.getElementsByTagName("groupId").item(0));
+        Document second = cache.getDocument(pom, file -> {
+            throw new AssertionError("should be cached");
+        });
+
+        assertEquals(1, parsed[0]);
+        assertNotSame(first, second);
+        assertEquals(1, first.getElementsByTagName("groupId").getLength());
+        assertEquals(2, second.getElementsByTagName("groupId").getLength());
+    }
+
+    @Test
+    void shouldShareReadOnlyModels() {
+        PomCache cache = new PomCache(10, null);
+
+        PomModel model = cache.getModel(pom);
+
+        assertSame(model, cache.getModel(pom));
+        assertEquals("b", model.getProperties().get("a"));
+        assertThrows(UnsupportedOperationException.class, () -> model.getProperties().put("a", "c"));
+        assertThrows(UnsupportedOperationException.class, () -> model.getDependencies().clear());
+        assertThrows(UnsupportedOperationException.class, () -> model.getDependencyManagement().clear());
+        assertThrows(UnsupportedOperationException.class, () -> model.getLicenses().clear());
+    }
+}
@@ -0,0 +1,184 @@
+package org.jboss.pnc.bacon.pig;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PomReaderTest {
+
+    private static final String POM = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<project xmlns=\"http://maven.apache.org/POM/4.0.0\"\n" +
+            "         xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+            "         xsi:schemaLocation=\"http://maven.apache.org/POM/4.0.0 " +
+            "http://maven.apache.org/xsd/maven-4.0.0.xsd\">\n" +
+            "  <modelVersion>4.0.0</modelVersion>\n" +
+            "  <parent>\n" +
+            "    <groupId>org.foo</groupId>\n" +
+            "    <artifactId>foo-parent</artifactId>\n" +
+            "    <version>1.0</version>\n" +
+            "    <relativePath>../pom.xml</relativePath>\n" +
+            "  </parent>\n" +
+            "  <artifactId>foo-core</artifactId>\n" +
+            "  <packaging>bundle</packaging>\n" +
+            "  <!-- comments are ignored -->\n" +
+            "  <properties>\n" +
+            "    <bar.version>2.0</bar.version>\n" +
+            "    <empty.property/>\n" +
+            "  </properties>\n" +
+            "  <licenses>\n" +
+            "    <license>\n" +
+            "      <name>Apache License, Version 2.0</name>\n" +
+            "      <url>http://www.apache.org/licenses/LICENSE-2.0.txt</url>\n" +
+            "      <distribution>repo</distribution>\n" +
+            "    </license>\n" +
+            "  </licenses>\n" +
+            "  <dependencyManagement>\n" +
+            "    <dependencies>\n" +
+            "      <dependency>\n" +
+            "        <groupId>org.bar</groupId>\n" +
+            "        <artifactId>bar-bom</artifactId>\n" +
+            "        <version>${bar.version}</version>\n" +
+            "        <type>pom</type>\n" +
+            "        <scope>import</scope>\n" +
+            "      </dependency>\n" +
+            "    </dependencies>\n" +
+            "  </dependencyManagement>\n" +
+            "  <dependencies>\n" +
+            "    <dependency>\n" +
+            "      <groupId>org.bar</groupId>\n" +
+            "      <artifactId>bar</artifactId>\n" +
+            "      <classifier>tests</classifier>\n" +
+            "      <scope>test</scope>\n" +
+            "      <optional>true</optional>\n" +
+            "      <exclusions>\n" +
+            "        <exclusion>\n" +
+            "          <groupId>org.excluded</groupId>\n" +
+            "          <artifactId>excluded</artifactId>\n" +
+            "        </exclusion>\n" +
+            "      </exclusions>\n" +
+            "    </dependency>\n" +
+            "  </dependencies>\n" +
+            "  <build>\n" +
+            "    <plugins>\n" +
+            "      <plugin>\n" +
+            "        <artifactId>maven-compiler-plugin</artifactId>\n" +
+            "        <dependencies>\n" +
+            "          <dependency>\n" +
+            "            <groupId>org.plugin</groupId>\n" +
+            "            <artifactId>plugin-dependency</artifactId>\n" +
+            "          </dependency>\n" +
+            "        </dependencies>\n" +
+            "      </plugin>\n" +
+            "    </plugins>\n" +
+            "  </build>\n" +
+            "  <profiles>\n" +
+            "    <profile>\n" +
+            "      <id>extra</id>\n" +
+            "      <dependencies>\n" +
+            "        <dependency>\n" +
+            "          <groupId>org.profile</groupId>\n" +
+            "          <artifactId>profile-dependency</artifactId>\n" +
+            "        </dependency>\n" +
+            "      </dependencies>\n" +
+            "    </profile>\n" +
+            "  </profiles>\n" +
+            "</project>\n";
+
+    @Test
+    void shouldReadCoordinatesInheritedFromParent() throws XMLStreamException {
+        PomModel pom = read(POM);
+
+        assertTrue(pom.hasParent());
+        assertEquals("org.foo", pom.getParentGroupId());
+        assertEquals("foo-parent", pom.getParentArtifactId());
+        assertEquals("1.0", pom.getParentVersion());
+        assertNull(pom.getGroupId());
+        assertEquals("org.foo", pom.getEffectiveGroupId());
+        assertEquals("foo-core", pom.getArtifactId());
+        assertEquals("1.0", pom.getEffectiveVersion());
+        assertEquals("bundle", pom.getEffectivePackaging());
+    }
+
+    @Test
+    void shouldReadProperties() throws XMLStreamException {
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("bar.version", "2.0");
+        expected.put("empty.property", "");
+
+        assertEquals(expected, read(POM).getProperties());
+    }
+
+    @Test
+    void shouldReadDependenciesAndDependencyManagement() throws XMLStreamException {
+        PomModel pom = read(POM);
+
+        assertEquals(1, pom.getDependencies().size());
+        PomModel.Dependency dependency = pom.getDependencies().get(0);
+        assertEquals("org.bar", dependency.getGroupId());
+        assertEquals("bar", dependency.getArtifactId());
+        assertNull(dependency.getVersion());
+        assertEquals("tests", dependency.getClassifier());
+        assertEquals("test", dependency.getScope());
+        assertTrue(dependency.isOptional());
+
+        assertEquals(1, pom.getDependencyManagement().size());
+        PomModel.Dependency managed = pom.getDependencyManagement().get(0);
+        assertEquals("bar-bom", managed.getArtifactId());
+        assertEquals("${bar.version}", managed.getVersion());
+        assertEquals("pom", managed.getType());
+        assertEquals("import", managed.getScope());
+        assertFalse(managed.isOptional());
+    }
+
+    @Test
+    void shouldSkipDependenciesOutsideOfProjectDependencies() throws XMLStreamException {
+        List<String> artifactIds = read(POM).getDependencies().stream()
+                .map(PomModel.Dependency::getArtifactId)
+                .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList("bar"), artifactIds);
+    }
+
+    @Test
+    void shouldReadLicenses() throws XMLStreamException {
+        List<PomModel.License> licenses = read(POM).getLicenses();
+
+        assertEquals(1, licenses.size());
+        assertEquals("Apache License, Version 2.0", licenses.get(0).getName());
+        assertEquals("http://www.apache.org/licenses/LICENSE-2.0.txt", licenses.get(0).getUrl());
+        assertEquals("repo", licenses.get(0).getDistribution());
+        assertNull(licenses.get(0).getComments());
+    }
+
+    @Test
+    void shouldReadPomWithoutNamespace() throws XMLStreamException {
+        PomModel pom = read("<project><groupId>org.foo</groupId><artifactId>foo</artifactId>" +
+                "<version>1.0</version></project>");
+
+        assertFalse(pom.hasParent());
+        assertEquals("org.foo:foo:jar:1.0", pom.getGav().toGapv());
+        assertTrue(pom.getDependencies().isEmpty());
+    }
+
+    @Test
+    void shouldRejectNonPomDocuments() {
+        assertThrows(XMLStreamException.class, () -> read("<settings><localRepository/></settings>"));
+    }
+
+    private static PomModel read(String pom) throws XMLStreamException {
+        return PomReader.read(new ByteArrayInputStream(pom.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,51 @@
+package org.jboss.pnc.bacon.pig;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PropertyInterpolatorTest {
+
+    @Test
+    void shouldLeaveValuesWithoutReferencesIntact() {
+        String value = "1.0.0.Final";
+        assertSame(value, new PropertyInterpolator(new HashMap<>()).interpolate(value));
+    }
+
+    @Test
+    void shouldResolveNestedProperties() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("version.major", "7");
+        properties.put("version.eap", "${version.major}.2.0");
+        properties.put("version.server", "${version.eap}.GA-redhat-${build}");
+        properties.put("build", "00001");
+
+        PropertyInterpolator interpolator = new PropertyInterpolator(properties);
+        assertEquals("eap-7.2.0.GA-redhat-00001", interpolator.interpolate("eap-${version.server}"));
+    }
+
+    @Test
+    void shouldLeaveUndefinedPropertiesUnresolved() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("known", "value");
+
+        PropertyInterpolator interpolator = new PropertyInterpolator(properties);
+        assertEquals("value-${unknown}-${", interpolator.interpolate("${known}-${unknown}-${"));
+    }
+
+    @Test
+    void shouldDetectCycles() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("a", "${b}");
+        properties.put("b", "x${a}");
+
+        PropertyInterpolator interpolator = new PropertyInterpolator(properties);
+        PigException error = assertThrows(PigException.class, () -> interpolator.interpolate("${a}"));
+        assertEquals("Cyclic property reference: a -> b -> a", error.getMessage());
+    }
+}
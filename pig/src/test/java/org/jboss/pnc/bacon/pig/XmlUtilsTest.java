@@ -0,0 +1,307 @@
+package org.jboss.pnc.bacon.pig;
+
+import org.apache.commons.io.FileUtils;
+import org.jboss.pnc.bacon.pig.data.GAV;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class XmlUtilsTest {
+    private static final String POM = "<project>\n" +
+            "  <groupId>org.foo</groupId>\n" +
+            "  <artifactId>foo</artifactId>\n" +
+            "  <version>1.0</version>\n" +
+            "  <dependencies>\n" +
+            "    <dependency>\n" +
+            "      <groupId>org.bar</groupId>\n" +
+            "      <artifactId>bar</artifactId>\n" +
+            "    </dependency>\n" +
+            "    <dependency>\n" +
+            "      <groupId>org.baz</groupId>\n" +
+            "      <artifactId>baz</artifactId>\n" +
+            "    </dependency>\n" +
+            "  </dependencies>\n" +
+            "</project>\n";
+
+    private static final String NESTED = "<project>\n" +
+            "  <parent>\n" +
+            "    <groupId>org.foo</groupId>\n" +
+            "    <version>1.0</version>\n" +
+            "  </parent>\n" +
+            "  <artifactId>foo</artifactId>\n" +
+            "  <dependencies>\n" +
+            "    <dependency>\n" +
+            "      <groupId>org.bar</groupId>\n" +
+            "      <artifactId>bar</artifactId>\n" +
+            "      <version>${bar.version}</version>\n" +
+            "      <exclusions>\n" +
+            "        <exclusion>\n" +
+            "          <groupId>org.excluded</groupId>\n" +
+            "          <artifactId>excluded</artifactId>\n" +
+            "        </exclusion>\n" +
+            "        <exclusion><groupId>org.other</groupId><artifactId>other</artifactId></exclusion>\n" +
+            "      </exclusions>\n" +
+            "      <dependency><dependency><artifactId>nested</artifactId></dependency></dependency>\n" +
+            "    </dependency>\n" +
+            "    <!-- comment between elements -->\n" +
+            "    <dependency><groupId>org.baz</groupId><artifactId>baz</artifactId></dependency>\n" +
+            "  </dependencies>\n" +
+            "</project>\n";
+
+    private static final String SERIALIZED = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<project>\n" +
+            "  <dependencies>\n" +
+            "    <!-- the first dependency -->\n" +
+            "    <dependency optional=\"true\" note=\"a &amp; b\">\n" +
+            "      <groupId>org.bar</groupId>\n" +
+            "      <artifactId>bar</artifactId>\n" +
+            "      <description>1 &lt; 2 &amp;&amp; &#169; &quot;quoted&quot;</description>\n" +
+            "      <x:y xmlns:x=\"urn:x\">t</x:y>\n" +
+            "    </dependency>\n" +
+            "    <dependency>\n" +
+            "      <groupId>org.baz</groupId>\n" +
+            "      <artifactId>baz</artifactId>\n" +
+            "      <!-- inner comment --><empty/>\n" +
+            "    </dependency>\n" +
+            "    <dependency><groupId>org.skipped</groupId><artifactId>skipped</artifactId></dependency>\n" +
+            "  </dependencies>\n" +
+            "</project>\n";
+
+    private Path workDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workDir = Files.createTempDirectory("xml-utils-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    @Test
+    void shouldReuseCompiledExpressionWithinThread() throws XPathExpressionException {
+        XPathExpression expression = XmlUtils.compile("/project/version");
+
+        assertSame(expression, XmlUtils.compile("/project/version"));
+        assertNotSame(expression, XmlUtils.compile("/project/groupId"));
+    }
+
+    @Test
+    void shouldNotShareCompiledExpressionsBetweenThreads() throws Exception {
+        XPathExpression expression = XmlUtils.compile("/project/version");
+
+        XPathExpression otherThreadExpression = CompletableFuture.supplyAsync(() -> {
+            try {
+                return XmlUtils.compile("/project/version");
+            } catch (XPathExpressionException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get();
+
+        assertNotSame(expression, otherThreadExpression);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedExpressions() throws XPathExpressionException {
+        XPathExpression frequentlyUsed = XmlUtils.compile("/project/version");
+        XPathExpression rarelyUsed = XmlUtils.compile("/project/groupId");
+        for (int i = 0; i < 100; i++) {
+            XmlUtils.compile("/project/dependencies/dependency[" + i + "]");
+            XmlUtils.compile("/project/version");
+        }
+
+        assertSame(frequentlyUsed, XmlUtils.compile("/project/version"));
+        assertNotSame(rarelyUsed, XmlUtils.compile("/project/groupId"));
+    }
+
+    @Test
+    void shouldEvaluateCachedExpressionAgainstEachDocument() throws IOException {
+        File first = pom("first.xml", POM);
+        File second = pom("second.xml", POM.replace("<version>1.0</version>", "<version>2.0</version>"));
+
+        assertEquals(Arrays.asList("1.0"), textOf(XmlUtils.listNodes(first, "/project/version")));
+        assertEquals(Arrays.asList("2.0"), textOf(XmlUtils.listNodes(second, "/project/version")));
+    }
+
+    @Test
+    void shouldEvaluateMultipleExpressionsInOrder() throws IOException {
+        File pom = pom("pom.xml", POM);
+        String[] expressions = {"/project/version", "/project/dependencies/dependency/artifactId", "/project/missing"};
+
+        Map<String, List<Node>> result = XmlUtils.listNodes(pom, expressions);
+
+        assertEquals(Arrays.asList(expressions), new ArrayList<>(result.keySet()));
+        for (String expression : expressions) {
+            assertEquals(textOf(XmlUtils.listNodes(pom, expression)), textOf(result.get(expression)));
+        }
+        assertEquals(Arrays.asList("bar", "baz"), textOf(result.get("/project/dependencies/dependency/artifactId")));
+    }
+
+    @Test
+    void shouldFindOnlyDirectChildrenLikeSubtreeScan() throws IOException {
+        File pom = pom("nested.xml", NESTED);
+        List<Element> elements = new ArrayList<>();
+        for (Node node : XmlUtils.listNodes(pom, "//*")) {
+            elements.add((Element) node);
+        }
+
+        for (Element element : elements) {
+            XmlUtils.ChildElements children = XmlUtils.ChildElements.of(element);
+            for (String tagName : Arrays.asList("groupId", "artifactId", "version", "dependency", "exclusion",
+                    "exclusions", "parent", "missing")) {
+                List<Element> expected = directChildrenBySubtreeScan(element, tagName);
+                assertEquals(expected, XmlUtils.getChildrenWithTagName(element, tagName),
+                        tagName + " in " + element.getTagName());
+                assertEquals(expected, children.get(tagName), tagName + " in " + element.getTagName());
+            }
+        }
+    }
+
+    @Test
+    void shouldIgnoreNestedElementsWithSameTagName() throws IOException {
+        Element dependency = (Element) XmlUtils.listNodes(pom("nested.xml", NESTED),
+                "/project/dependencies/dependency").get(0);
+        XmlUtils.ChildElements children = XmlUtils.ChildElements.of(dependency);
+        PropertyInterpolator properties = new PropertyInterpolator(Collections.singletonMap("bar.version", "3.0"));
+
+        assertEquals("org.bar", XmlUtils.getValue(children, "groupId", properties));
+        assertEquals("3.0", XmlUtils.getValue(dependency, "version", properties));
+        assertEquals(1, children.get("groupId").size());
+    }
+
+    @Test
+    void shouldRejectMultipleDirectChildrenWithSameTagName() throws IOException {
+        Element project = (Element) XmlUtils.listNodes(pom("duplicated.xml",
+                "<project><version>1.0</version><version>2.0</version></project>"), "/project").get(0);
+
+        assertThrows(IllegalStateException.class,
+                () -> XmlUtils.getValue(project, "version", new PropertyInterpolator(Collections.emptyMap())));
+    }
+
+    @Test
+    void shouldInterpolateWithCurrentValuesOfPropertyMap() throws IOException {
+        Element dependency = (Element) XmlUtils.listNodes(pom("nested.xml", NESTED),
+                "/project/dependencies/dependency").get(0);
+        Map<String, String> properties = new HashMap<>();
+        properties.put("bar.version", "3.0");
+        assertEquals("3.0", XmlUtils.getValue(dependency, "version", properties));
+
+        properties.put("bar.version", "3.1");
+
+        assertEquals("3.1", XmlUtils.getValue(dependency, "version", properties));
+        assertEquals("3.1", GAV.fromXml(dependency, properties).getVersion());
+    }
+
+    @Test
+    void shouldSerializeLikeDefaultTransformer() throws Exception {
+        File pom = pom("serialized.xml", SERIALIZED);
+        String expected = serializeWithDefaultTransformer(pom, Collections.emptyList());
+
+        String serialized = XmlUtils.extract(pom, "/project/dependencies/dependency").asString();
+
+        assertEquals(expected, serialized);
+        assertTrue(serialized.contains("<x:y xmlns:x=\"urn:x\">t</x:y>"), serialized);
+    }
+
+    @Test
+    void shouldWriteFileLikeDefaultTransformer() throws Exception {
+        File pom = pom("serialized.xml", SERIALIZED);
+        File output = workDir.resolve("output.xml").toFile();
+
+        XmlUtils.extract(pom, "/project/dependencies/dependency").writeTo(output);
+
+        assertEquals(serializeWithDefaultTransformer(pom, Collections.emptyList()),
+                FileUtils.readFileToString(output, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldSkipArtifactsLikeDefaultTransformer() throws Exception {
+        File pom = pom("serialized.xml", SERIALIZED);
+
+        String serialized = XmlUtils.extract(pom, "/project/dependencies/dependency")
+                .skippingArtifacts("org.skipped:skipped", "org.bar:bar")
+                .asString();
+
+        assertEquals(serializeWithDefaultTransformer(pom, Arrays.asList("org.skipped", "org.bar")), serialized);
+        assertTrue(serialized.startsWith("<dependency>"), serialized);
+    }
+
+    /**
+     * the way {@link XmlUtils.XmlToString} used to serialize the nodes, skipping the ones containing the given text
+     */
+    private static String serializeWithDefaultTransformer(File file, List<String> skipped) throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+        NodeList nodes = document.getElementsByTagName("dependency");
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            StringWriter writer = new StringWriter();
+            transformer.transform(new DOMSource(nodes.item(i)), new StreamResult(writer));
+            String element = writer.toString();
+            if (skipped.stream().noneMatch(element::contains)) {
+                result.append(element).append("\n");
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * the way {@link XmlUtils#getChildrenWithTagName(Element, String)} used to find the children
+     */
+    private static List<Element> directChildrenBySubtreeScan(Element parent, String tagName) {
+        List<Element> elements = new ArrayList<>();
+        NodeList descendants = parent.getElementsByTagName(tagName);
+        for (int i = 0; i < descendants.getLength(); i++) {
+            Node item = descendants.item(i);
+            if (item.getParentNode().isSameNode(parent) && item instanceof Element) {
+                elements.add((Element) item);
+            }
+        }
+        return elements;
+    }
+
+    private File pom(String name, String content) throws IOException {
+        File file = workDir.resolve(name).toFile();
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> textOf(List<? extends Node> nodes) {
+        return nodes.stream().map(Node::getTextContent).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,45 @@
+package org.jboss.pnc.bacon.pig.config.build;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BuildConfigTest {
+
+    @Test
+    void shouldMergeDefaultDependenciesWithoutDuplicates() {
+        BuildConfig defaults = new BuildConfig();
+        defaults.setDependencies(new ArrayList<>(Arrays.asList("common", "parent")));
+        defaults.setBuildScript("mvn deploy");
+        BuildConfig build = new BuildConfig();
+        build.setDependencies(new ArrayList<>(Arrays.asList("parent", "lib")));
+
+        build.setDefaults(defaults);
+
+        assertEquals(Arrays.asList("parent", "lib", "common"), build.getDependencies());
+        assertEquals("mvn deploy", build.getBuildScript());
+    }
+
+    @Test
+    void shouldNotModifyListsSharedBetweenBuilds() {
+        // what a YAML alias results in
+        List<String> shared = new ArrayList<>(Arrays.asList("lib"));
+        BuildConfig first = new BuildConfig();
+        first.setDependencies(shared);
+        BuildConfig second = new BuildConfig();
+        second.setDependencies(shared);
+        BuildConfig defaults = new BuildConfig();
+        defaults.setDependencies(new ArrayList<>(Arrays.asList("common")));
+
+        first.setDefaults(defaults);
+        second.setDefaults(defaults);
+
+        assertEquals(Arrays.asList("lib"), shared);
+        assertEquals(Arrays.asList("lib", "common"), first.getDependencies());
+        assertEquals(Arrays.asList("lib", "common"), second.getDependencies());
+    }
+}
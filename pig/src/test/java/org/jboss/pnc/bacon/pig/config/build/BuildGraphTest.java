@@ -0,0 +1,84 @@
+package org.jboss.pnc.bacon.pig.config.build;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BuildGraphTest {
+
+    @Test
+    void shouldSortConfigsToLevels() {
+        BuildGraph graph = BuildGraph.of(Arrays.asList(
+                config("app", "core", "util"),
+                config("core", "util"),
+                config("util"),
+                config("docs")
+        ));
+
+        assertTrue(graph.getErrors().isEmpty());
+        assertEquals(
+                Arrays.asList(Arrays.asList("util", "docs"), Collections.singletonList("core"), Collections.singletonList("app")),
+                names(graph.getLevels()));
+        assertEquals(Arrays.asList("app", "core"), graph.getDependents("util"));
+    }
+
+    @Test
+    void shouldReportMissingDependencies() {
+        BuildGraph graph = BuildGraph.of(Arrays.asList(
+                config("app", "core", "missing"),
+                config("core")
+        ));
+
+        assertEquals(Collections.singletonList("Build config app depends on missing, which is not defined"),
+                graph.getErrors());
+        assertEquals(Arrays.asList(Collections.singletonList("core"), Collections.singletonList("app")),
+                names(graph.getLevels()));
+    }
+
+    @Test
+    void shouldReportCycles() {
+        BuildGraph graph = BuildGraph.of(Arrays.asList(
+                config("app", "a"),
+                config("a", "b"),
+                config("b", "c"),
+                config("c", "a"),
+                config("independent")
+        ));
+
+        assertTrue(graph.hasCycle());
+        assertEquals(Arrays.asList("a", "b", "c", "a"), graph.getCycle());
+        assertEquals(Collections.singletonList("Build configs depend on each other in a cycle: a -> b -> c -> a"),
+                graph.getErrors());
+        assertThrows(IllegalStateException.class, graph::getLevels);
+    }
+
+    @Test
+    void shouldDetectSelfDependency() {
+        BuildGraph graph = BuildGraph.of(Collections.singletonList(config("app", "app")));
+
+        assertEquals(Arrays.asList("app", "app"), graph.getCycle());
+        assertFalse(graph.getErrors().isEmpty());
+    }
+
+    private static BuildConfig config(String name, String... dependencies) {
+        BuildConfig config = new BuildConfig();
+        config.setName(name);
+        config.setDependencies(new ArrayList<>(Arrays.asList(dependencies)));
+        return config;
+    }
+
+    private static List<List<String>> names(List<List<BuildConfig>> levels) {
+        return levels.stream()
+                .map(level -> level.stream().map(BuildConfig::getName).collect(toList()))
+                .collect(toList());
+    }
+}
@@ -0,0 +1,193 @@
+package org.jboss.pnc.bacon.pig.config.build;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConfigSnapshotsTest {
+    private static final byte[] CONTENT = "product:\n  name: Test\n".getBytes(StandardCharsets.UTF_8);
+
+    private Path directory;
+    private ConfigSnapshots snapshots;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("config-snapshots-test");
+        snapshots = new ConfigSnapshots(directory);
+        loads = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Test
+    void shouldRoundTripConfig() {
+        Config config = snapshots.get(CONTENT, "", this::load);
+        Config restored = snapshots.get(CONTENT, "", this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(config, restored);
+        assertEquals("Test", restored.getProduct().getName());
+        assertEquals("repo-build", restored.getFlow().getRepositoryGeneration().getSourceBuild());
+    }
+
+    @Test
+    void shouldUseSeparateSnapshotsForDifferentOverrides() {
+        snapshots.get(CONTENT, "", this::load);
+        snapshots.get(CONTENT, "version=2.0.0", this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(2, snapshotFiles().size());
+    }
+
+    @Test
+    void shouldReplaceSnapshotOfIncompatibleClasses() throws IOException {
+        snapshots.get(CONTENT, "", this::load);
+        Path snapshot = snapshotFiles().get(0);
+        changeSerialVersionUid(snapshot, Config.class.getName());
+
+        Config config = snapshots.get(CONTENT, "", this::load);
+        assertEquals(2, loads.get());
+        assertEquals("Test", config.getProduct().getName());
+
+        snapshots.get(CONTENT, "", this::load);
+        assertEquals(2, loads.get(), "the stale snapshot should have been replaced with a readable one");
+    }
+
+    @Test
+    void shouldReplaceSnapshotOfOtherType() throws IOException {
+        snapshots.get(CONTENT, "", this::load);
+        Path snapshot = snapshotFiles().get(0);
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(snapshot));
+             ObjectOutputStream objectOutput = new ObjectOutputStream(output)) {
+            objectOutput.writeObject("not a config");
+        }
+
+        snapshots.get(CONTENT, "", this::load);
+        snapshots.get(CONTENT, "", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldRejectSnapshotWithOtherClasses() throws IOException {
+        snapshots.get(CONTENT, "", this::load);
+        Path snapshot = snapshotFiles().get(0);
+        Config config = load();
+        config.getAddons().put("unexpected", Collections.singletonMap("file", new File("/tmp/unexpected")));
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(snapshot));
+             ObjectOutputStream objectOutput = new ObjectOutputStream(output)) {
+            objectOutput.writeObject(config);
+        }
+
+        Config loaded = snapshots.get(CONTENT, "", this::load);
+
+        assertEquals(3, loads.get());
+        assertFalse(loaded.getAddons().containsKey("unexpected"));
+        snapshots.get(CONTENT, "", this::load);
+        assertEquals(3, loads.get(), "the rejected snapshot should have been replaced with a readable one");
+    }
+
+    @Test
+    void shouldRoundTripCollectionsOfAddons() {
+        Config config = snapshots.get(CONTENT, "", () -> {
+            Config loaded = load();
+            Map<String, Object> addon = new LinkedHashMap<>();
+            addon.put("list", new ArrayList<>(Arrays.asList("a", "b")));
+            addon.put("number", 42);
+            addon.put("flag", true);
+            loaded.getAddons().put("addon", addon);
+            return loaded;
+        });
+
+        Config restored = snapshots.get(CONTENT, "", this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(config.getAddons(), restored.getAddons());
+    }
+
+    private Config load() {
+        loads.incrementAndGet();
+        Config config = new Config();
+        Product product = new Product();
+        product.setName("Test");
+        config.setProduct(product);
+        config.setVersion("1.0.0");
+        RepoGenerationData repoGeneration = new RepoGenerationData();
+        repoGeneration.setStrategy(RepoGenerationStrategy.DOWNLOAD);
+        repoGeneration.setSourceBuild("repo-build");
+        Flow flow = new Flow();
+        flow.setRepositoryGeneration(repoGeneration);
+        config.setFlow(flow);
+        return config;
+    }
+
+    private List<Path> snapshotFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.toString().endsWith(".snapshot")).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * flips the serialVersionUID that follows the class name in the class descriptor of the stream
+     */
+    private static void changeSerialVersionUid(Path snapshot, String className) throws IOException {
+        byte[] content;
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(snapshot))) {
+            content = IOUtils.toByteArray(input);
+        }
+        byte[] name = className.getBytes(StandardCharsets.UTF_8);
+        int uidStart = indexOf(content, name) + name.length;
+        assertTrue(uidStart > name.length);
+        for (int i = uidStart; i < uidStart + 8; i++) {
+            content[i] = (byte) ~content[i];
+        }
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(snapshot))) {
+            output.write(content);
+        }
+    }
+
+    private static int indexOf(byte[] content, byte[] part) {
+        outer:
+        for (int i = 0; i <= content.length - part.length; i++) {
+            for (int j = 0; j < part.length; j++) {
+                if (content[i + j] != part[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
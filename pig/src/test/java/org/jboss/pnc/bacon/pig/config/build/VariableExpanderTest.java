@@ -0,0 +1,65 @@
+package org.jboss.pnc.bacon.pig.config.build;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class VariableExpanderTest {
+
+    @Test
+    void shouldExpandVariablesUsedInVariables() {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("productVersion", "{{major}}.{{minor}}.0");
+        variables.put("major", "7");
+        variables.put("minor", "2");
+
+        String expanded = new VariableExpander(variables)
+                .expand("version: {{productVersion}}\nscmRevision: release-{{productVersion}}-{{major}}");
+
+        assertEquals("version: 7.2.0\nscmRevision: release-7.2.0-7", expanded);
+    }
+
+    @Test
+    void shouldExpandNestedReferences() {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("flavor", "eap");
+        variables.put("version-eap", "7.2.0");
+
+        assertEquals("7.2.0", new VariableExpander(variables).expand("{{version-{{flavor}}}}"));
+    }
+
+    @Test
+    void shouldLeaveBracesNotClosedInTheSameLine() {
+        String text = "script: echo {{\n}}";
+        assertEquals(text, new VariableExpander(new HashMap<>()).expand(text));
+    }
+
+    @Test
+    void shouldReportAllUndefinedVariables() {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("version", "{{major}}.0");
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> new VariableExpander(variables).expand("name: foo\nversion: {{version}}\nmilestone: {{milestone}}"));
+
+        assertEquals("No variable definition for {{major}} (definition of version), {{milestone}} (line 3)",
+                error.getMessage());
+    }
+
+    @Test
+    void shouldReportCycles() {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("a", "{{b}}");
+        variables.put("b", "{{c}}");
+        variables.put("c", "{{a}}");
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> new VariableExpander(variables).expand("{{a}}"));
+
+        assertEquals("Cyclic variable definition: a -> b -> c -> a", error.getMessage());
+    }
+}
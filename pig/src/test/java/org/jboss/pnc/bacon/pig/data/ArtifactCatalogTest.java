@@ -0,0 +1,93 @@
+package org.jboss.pnc.bacon.pig.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ArtifactCatalogTest {
+    private final Artifact libJar = artifact("org.example:lib:jar:1.0", "lib-1.0.jar");
+    private final Artifact libPom = artifact("org.example:lib:pom:1.0", "lib-1.0.pom");
+    private final Artifact toolsJar = artifact("org.example:lib-tools:jar:1.0", "lib-tools-1.0.jar");
+    private final Artifact distZip = artifact("org.example:dist:zip:1.0", "dist-1.0.zip");
+    private final Artifact commonsJar = artifact("org.apache:commons:jar:2.0", "commons-2.0.jar");
+
+    private final PncBuild libBuild = build(1, "lib", Arrays.asList(libJar, libPom, toolsJar), Collections.singletonList(commonsJar));
+    private final PncBuild distBuild = build(2, "dist", Collections.singletonList(distZip), Arrays.asList(libJar, commonsJar));
+
+    private final ArtifactCatalog catalog = ArtifactCatalog.of(Arrays.asList(libBuild, distBuild));
+
+    @Test
+    void shouldIndexEachArtifactOnce() {
+        assertEquals(5, catalog.size());
+        assertSame(libJar, catalog.byIdentifier("org.example:lib:jar:1.0").get());
+        assertFalse(catalog.byIdentifier("org.example:lib:jar:2.0").isPresent());
+    }
+
+    @Test
+    void shouldFindByGa() {
+        assertEquals(Arrays.asList(libJar, libPom), catalog.byGa("org.example:lib"));
+        assertTrue(catalog.byGa("org.example:li").isEmpty());
+    }
+
+    @Test
+    void shouldFindByFileNameAndExtension() {
+        assertEquals(Collections.singletonList(toolsJar), catalog.byFileName("lib-tools-1.0.jar"));
+        assertEquals(Arrays.asList(libJar, toolsJar, commonsJar), catalog.byExtension("jar"));
+        assertTrue(catalog.byFileName("lib-1.0").isEmpty());
+    }
+
+    @Test
+    void shouldFindByIdentifierPrefix() {
+        // sorted by identifier, '-' before ':'
+        assertEquals(Arrays.asList(distZip, toolsJar, libJar, libPom), catalog.byIdentifierPrefix("org.example:"));
+    }
+
+    @Test
+    void shouldFindByGlob() {
+        assertEquals(Arrays.asList(libJar, libPom, toolsJar), catalog.byFileNameGlob("lib-*"));
+        assertEquals(Arrays.asList(libJar, libPom), catalog.byFileNameGlob("lib-1.0.???"));
+        assertEquals(Collections.singletonList(distZip), catalog.byFileNameGlob("*.zip"));
+        assertEquals(Arrays.asList(commonsJar, libJar, toolsJar), catalog.byFileNameGlob("*-?.0.jar"));
+        assertEquals(Collections.singletonList(libPom), catalog.byFileNameGlob("lib-1.0.pom"));
+        assertTrue(catalog.byFileNameGlob("lib.1.0*").isEmpty(), "dots in globs are literal");
+    }
+
+    @Test
+    void shouldKnowProducingBuilds() {
+        assertSame(libBuild, catalog.producedBy(libJar).get());
+        assertSame(distBuild, catalog.producedBy("org.example:dist:zip:1.0").get());
+        assertFalse(catalog.producedBy(commonsJar).isPresent());
+    }
+
+    @Test
+    void shouldProvideEmptyCatalogWithoutBuilds() {
+        Data data = new Data();
+        assertEquals(0, data.getCatalog().size());
+        assertTrue(data.getAllBuiltArtifacts().isEmpty());
+
+        Map<String, PncBuild> builds = new HashMap<>();
+        builds.put("lib", libBuild);
+        data.setBuilds(builds);
+        assertEquals(4, data.getCatalog().size());
+    }
+
+    private static Artifact artifact(String identifier, String fileName) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("identifier", identifier);
+        map.put("filename", fileName);
+        return new Artifact(map);
+    }
+
+    private static PncBuild build(int id, String name, List<Artifact> built, List<Artifact> dependencies) {
+        return new PncBuild(id, id, name, null, null, null, PncBuild.SUCCESSFUL_STATUS, null, built, dependencies);
+    }
+}
@@ -0,0 +1,96 @@
+package org.jboss.pnc.bacon.pig.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ArtifactMatcherTest {
+    private static final List<String> VALUES = Arrays.asList(
+            "",
+            "lib.jar",
+            "libXjar",
+            "lib-1.0.jar",
+            "lib-1.0.jar.md5",
+            "lib.",
+            "lib..",
+            "lib\\",
+            "lib\\x",
+            "lib+jar",
+            "libbjar",
+            "lib(1).jar",
+            "lib[1].jar",
+            "lib$",
+            "^lib",
+            "lib-1.0\n.jar",
+            "lib-1.0\r\n",
+            "lib-1.0 ",
+            "other.jar"
+    );
+
+    @Test
+    void shouldMatchLikeStringMatches() {
+        List<String> patterns = Arrays.asList(
+                "",
+                ".*",
+                // literals with escaped metacharacters
+                "lib\\.jar",
+                "lib\\+jar",
+                "lib\\(1\\)\\.jar",
+                "lib\\[1\\]\\.jar",
+                "lib\\$",
+                "\\^lib",
+                "lib\\\\",
+                // unescaped metacharacters
+                "lib.jar",
+                "lib+jar",
+                "lib$",
+                "^lib.*",
+                "^lib-1.0.jar$",
+                "lib(1).jar",
+                // patterns that only look like prefixes
+                "lib.*",
+                "lib-1.0.*",
+                "lib\\.*",
+                "lib\\\\.*",
+                "lib\\..*",
+                "lib.*\\.jar",
+                "lib.*.*",
+                "lib\\Q.*\\E",
+                "lib\\w.*",
+                "(?s)lib.*",
+                "lib-1\\.0.*"
+        );
+
+        for (String pattern : patterns) {
+            ArtifactMatcher matcher = ArtifactMatcher.of(pattern);
+            for (String value : VALUES) {
+                assertEquals(value.matches(pattern), matcher.matches(value),
+                        "pattern '" + pattern + "', value '" + value + "'");
+            }
+        }
+    }
+
+    @Test
+    void shouldNotMatchLineTerminatorsWithPrefixPattern() {
+        ArtifactMatcher matcher = ArtifactMatcher.of("lib-1.0.*");
+
+        assertTrue(matcher.matches("lib-1.0.jar"));
+        assertFalse(matcher.matches("lib-1.0\n.jar"));
+        assertFalse(matcher.matches("lib-1.0\u0085"));
+    }
+
+    @Test
+    void shouldGroupByAllMatchingPatterns() {
+        ArtifactMatcher matcher = ArtifactMatcher.of("lib.*", "lib-1\\.0\\.jar", "none");
+
+        assertEquals(Arrays.asList("lib.*", "lib-1\\.0\\.jar"), matcher.matchingPatterns("lib-1.0.jar"));
+        assertEquals(Arrays.asList("lib-1.0.jar", "lib-1.0.jar.md5"),
+                matcher.group(Arrays.asList("lib-1.0.jar", "lib-1.0.jar.md5", "other.jar"), v -> v).get("lib.*"));
+        assertTrue(matcher.group(VALUES, v -> v).get("none").isEmpty());
+    }
+}
@@ -0,0 +1,69 @@
+package org.jboss.pnc.bacon.pig.data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of parsing repository paths to GAVs.
+ * <p>
+ * Not run as part of the build, run the main method (e.g. from the IDE) to get the results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GAVPathParserBenchmark {
+
+    private String[] paths;
+
+    @Setup
+    public void setUp() {
+        paths = new String[]{
+                "org/jboss/pnc/bacon/pig/1.0.0.redhat-00001/pig-1.0.0.redhat-00001.jar",
+                "org/jboss/pnc/bacon/pig/1.0.0.redhat-00001/pig-1.0.0.redhat-00001-sources.jar",
+                "org/jboss/pnc/bacon/pig/1.0.0.redhat-00001/pig-1.0.0.redhat-00001.pom",
+                "io/undertow/undertow-core/2.0.19.Final-redhat-00001/undertow-core-2.0.19.Final-redhat-00001.jar",
+                "org/foo/bar/1.0-SNAPSHOT/bar-1.0-20190322.101010-12-tests.jar",
+                "com/example/dist/3.2.1/dist-3.2.1-project-sources.tar.gz"
+        };
+    }
+
+    @Benchmark
+    public void parser(Blackhole blackhole) {
+        for (String path : paths) {
+            blackhole.consume(GAVPathParser.parse(path));
+        }
+    }
+
+    @Benchmark
+    public void parserComponentsOnly(Blackhole blackhole) {
+        for (String path : paths) {
+            GAVPathParser parsed = GAVPathParser.parsed(path);
+            blackhole.consume(parsed.artifactId());
+            blackhole.consume(parsed.extension());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GAVPathParserBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
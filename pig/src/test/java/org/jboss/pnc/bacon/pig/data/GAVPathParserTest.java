@@ -0,0 +1,59 @@
+package org.jboss.pnc.bacon.pig.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GAVPathParserTest {
+
+    @Test
+    void shouldParseArtifactWithoutClassifier() {
+        GAV gav = GAVPathParser.parse("org/jboss/pnc/bacon/pig/1.0.0.redhat-00001/pig-1.0.0.redhat-00001.jar");
+        assertEquals("org.jboss.pnc.bacon", gav.getGroupId());
+        assertEquals("pig", gav.getArtifactId());
+        assertEquals("1.0.0.redhat-00001", gav.getVersion());
+        assertEquals("jar", gav.getPackaging());
+        assertNull(gav.getClassifier());
+    }
+
+    @Test
+    void shouldRecognizeClassifierAndExtension() {
+        GAV gav = GAVPathParser.parse("org/jboss/foo/1.0/foo-1.0-project-sources.tar.gz");
+        assertEquals("org.jboss", gav.getGroupId());
+        assertEquals("foo", gav.getArtifactId());
+        assertEquals("project-sources", gav.getClassifier());
+        assertEquals("tar.gz", gav.getPackaging());
+    }
+
+    @Test
+    void shouldParseTimestampedSnapshots() {
+        GAV gav = GAVPathParser.parse("org/foo/bar/1.0-SNAPSHOT/bar-1.0-20190322.101010-12-tests.jar");
+        assertEquals("1.0-SNAPSHOT", gav.getVersion());
+        assertEquals("tests", gav.getClassifier());
+        assertEquals("jar", gav.getPackaging());
+    }
+
+    @Test
+    void shouldFallBackToLastDotForOtherFiles() {
+        GAV gav = GAVPathParser.parse("org/foo/bar/1.0/maven-metadata.xml");
+        assertEquals("xml", gav.getPackaging());
+        assertNull(gav.getClassifier());
+    }
+
+    @Test
+    void shouldAcceptBothSeparatorsAndLeadingSeparators() {
+        GAV gav = GAVPathParser.parse(Paths.get("org", "foo", "bar", "1.0", "bar-1.0.pom"));
+        assertEquals("org.foo:bar:pom:1.0", gav.toGapv());
+        assertEquals("org.foo:bar:pom:1.0", GAVPathParser.parse("\\org\\foo\\bar\\1.0\\bar-1.0.pom").toGapv());
+        assertEquals("org.foo:bar:pom:1.0", new GAV("/org/foo/bar/1.0/bar-1.0.pom").toGapv());
+    }
+
+    @Test
+    void shouldRejectPathsWithoutGroupId() {
+        assertThrows(RuntimeException.class, () -> GAVPathParser.parse("bar/1.0/bar-1.0.jar"));
+    }
+}
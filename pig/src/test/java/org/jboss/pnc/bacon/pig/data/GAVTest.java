@@ -0,0 +1,53 @@
+package org.jboss.pnc.bacon.pig.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class GAVTest {
+
+    @Test
+    void shouldOrderByGapvcString() {
+        List<GAV> gavs = new ArrayList<>(Arrays.asList(
+                new GAV("org.example", "lib", "1.0", "jar", "sources"),
+                new GAV("org.example", "lib", "1.0", "jar"),
+                new GAV("org.example", "lib", "1.0", "jar", "javadoc"),
+                new GAV("org.example", "lib-extra", "1.0", "jar"),
+                new GAV("org.example", "lib", "1.0", "pom")
+        ));
+
+        gavs.sort(GAV.gapvcComparator);
+
+        // a missing classifier compares as "null", '-' sorts before the ':' separator
+        assertEquals(Arrays.asList(
+                "org.example:lib-extra:jar:1.0:null",
+                "org.example:lib:jar:1.0:javadoc",
+                "org.example:lib:jar:1.0:null",
+                "org.example:lib:jar:1.0:sources",
+                "org.example:lib:pom:1.0:null"
+        ), gavs.stream().map(GAV::toGapvc).collect(toList()));
+    }
+
+    @Test
+    void shouldInternComponents() {
+        GAV first = new GAV(new String("org.example"), "lib", "1.0", "jar");
+        GAV second = new GAV(new String("org.example"), "lib", "1.0", "jar");
+
+        assertSame(first.getGroupId(), second.getGroupId());
+    }
+
+    @Test
+    void shouldShareInstancesWithinFactory() {
+        GAVFactory factory = new GAVFactory();
+        GAV gav = factory.fromPath("org/example/lib/1.0/lib-1.0.jar");
+
+        assertSame(gav, factory.get("org.example", "lib", "1.0", "jar"));
+        assertEquals(1, factory.size());
+    }
+}
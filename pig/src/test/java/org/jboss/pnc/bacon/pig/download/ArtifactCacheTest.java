@@ -0,0 +1,135 @@
+package org.jboss.pnc.bacon.pig.download;
+
+import org.apache.commons.io.FileUtils;
+import org.jboss.pnc.bacon.pig.data.Artifact;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ArtifactCacheTest {
+    private static final String SHA256 = "0f1e2d3c4b5a69788796a5b4c3d2e1f00f1e2d3c4b5a69788796a5b4c3d2e1f0";
+
+    private Path workDir;
+    private ArtifactCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workDir = Files.createTempDirectory("artifact-cache-test");
+        cache = new ArtifactCache(workDir.resolve("cache"), Long.MAX_VALUE, true);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    @Test
+    void shouldRestoreStoredArtifactByIdentifier() throws IOException {
+        Artifact artifact = artifact("org.foo:bar:jar:1.0", SHA256);
+        cache.store(artifact, file("downloaded", "content"));
+
+        File target = workDir.resolve("target").toFile();
+        assertTrue(cache.restore(artifact, target));
+
+        assertEquals("content", read(target));
+        List<String> index = Files.readAllLines(workDir.resolve("cache").resolve("index"), StandardCharsets.UTF_8);
+        assertEquals(1, index.size());
+        assertTrue(index.get(0).startsWith("org.foo:bar:jar:1.0\t"));
+    }
+
+    @Test
+    void shouldNotRestoreArtifactWithChangedChecksum() throws IOException {
+        cache.store(artifact("org.foo:bar:jar:1.0", SHA256), file("downloaded", "content"));
+
+        Artifact rebuilt = artifact("org.foo:bar:jar:1.0", SHA256.replace('0', 'a'));
+
+        assertFalse(cache.restore(rebuilt, workDir.resolve("target").toFile()));
+    }
+
+    @Test
+    void shouldNotShareDeliveredFileWithCache() throws IOException {
+        Artifact artifact = artifact("org.foo:bar:jar:1.0", SHA256);
+        cache.store(artifact, file("downloaded", "content"));
+        File delivered = workDir.resolve("delivered").toFile();
+        assertTrue(cache.restore(artifact, delivered));
+
+        FileUtils.writeStringToFile(delivered, "modified", StandardCharsets.UTF_8);
+
+        File restoredAgain = workDir.resolve("restored-again").toFile();
+        assertTrue(cache.restore(artifact, restoredAgain));
+        assertEquals("content", read(restoredAgain));
+    }
+
+    @Test
+    void shouldSkipInvalidChecksums() throws IOException {
+        File downloaded = file("downloaded", "content");
+        for (String checksum : new String[]{"a", "../../../escaped", SHA256.replace('0', 'g'), SHA256 + "0",
+                SHA256.substring(0, 62) + "/x"}) {
+            Artifact artifact = artifact("org.foo:bar:jar:1.0", checksum);
+            cache.store(artifact, downloaded);
+
+            assertFalse(cache.restore(artifact, workDir.resolve("target").toFile()));
+        }
+        assertFalse(Files.exists(workDir.resolve("escaped")));
+        assertEquals(0, cache.stats().getObjectCount());
+    }
+
+    @Test
+    void shouldKeepStatsAcrossRuns() throws IOException {
+        Artifact artifact = artifact("org.foo:bar:jar:1.0", SHA256);
+        assertFalse(cache.restore(artifact, workDir.resolve("target").toFile()));
+        cache.store(artifact, file("downloaded", "content"));
+        assertTrue(cache.restore(artifact, workDir.resolve("target").toFile()));
+
+        CacheStats stats = new ArtifactCache(workDir.resolve("cache"), Long.MAX_VALUE, true).stats();
+
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getObjectCount());
+    }
+
+    @Test
+    void shouldResetStatsOnClear() throws IOException {
+        Artifact artifact = artifact("org.foo:bar:jar:1.0", SHA256);
+        cache.store(artifact, file("downloaded", "content"));
+        assertTrue(cache.restore(artifact, workDir.resolve("target").toFile()));
+
+        cache.clear();
+
+        CacheStats stats = new ArtifactCache(workDir.resolve("cache"), Long.MAX_VALUE, true).stats();
+        assertEquals(0, stats.getHits());
+        assertEquals(0, stats.getObjectCount());
+    }
+
+    private File file(String name, String content) throws IOException {
+        File file = workDir.resolve(name).toFile();
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+    }
+
+    private static Artifact artifact(String identifier, String sha256) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("identifier", identifier);
+        map.put("filename", "bar-1.0.jar");
+        map.put("public_url", "http://host/bar-1.0.jar");
+        map.put("sha256", sha256);
+        return new Artifact(map);
+    }
+}
@@ -0,0 +1,111 @@
+package org.jboss.pnc.bacon.pig.download;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChecksumsTest {
+    // checksums of "content"
+    private static final String MD5 = "9a0364b9e99bb480dd25e1f0284c8555";
+    private static final String SHA1 = "040f06fd774092478d450774f5ba30c5da78acc8";
+    private static final String SHA256 = "ed7002b439e9ac845f22357d822bac1444730fbdb6016d3ec9432297b9ec9f73";
+
+    private Path workDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workDir = Files.createTempDirectory("checksums-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    @Test
+    void shouldComputeChecksumsOfFile() throws IOException {
+        Checksums checksums = Checksums.of(file("file", "content"));
+
+        assertEquals(new Checksums(MD5, SHA1, SHA256), checksums);
+    }
+
+    @Test
+    void shouldComputeSameChecksumsFromBuffers() {
+        byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        Checksums.Calculator calculator = new Checksums.Calculator();
+        calculator.update(content, 0, 3);
+        calculator.update(ByteBuffer.wrap(content, 3, 4));
+
+        assertEquals(new Checksums(MD5, SHA1, SHA256), calculator.checksums());
+    }
+
+    @Test
+    void shouldNormalizeChecksums() {
+        Checksums checksums = new Checksums(" " + MD5.toUpperCase() + "\n", null, SHA256.toUpperCase());
+
+        assertEquals(MD5, checksums.getMd5());
+        assertNull(checksums.getSha1());
+        assertEquals(SHA256, checksums.getSha256());
+        assertEquals(Collections.emptyList(), checksums.mismatches(new Checksums(MD5, SHA1, SHA256)));
+    }
+
+    @Test
+    void shouldCompareOnlyChecksumsPresentOnBothSides() {
+        Checksums actual = new Checksums(MD5, SHA1, SHA256);
+
+        assertEquals(Collections.emptyList(), actual.mismatches(Checksums.NONE));
+        assertEquals(Collections.emptyList(), actual.mismatches(new Checksums(null, SHA1, null)));
+        assertEquals(Collections.emptyList(), new Checksums(MD5, null, null).mismatches(new Checksums(null, SHA1, "0")));
+    }
+
+    @Test
+    void shouldListAllMismatches() {
+        Checksums actual = new Checksums(MD5, SHA1, SHA256);
+
+        assertEquals(Arrays.asList("md5: expected 00, got " + MD5, "sha256: expected 11, got " + SHA256),
+                actual.mismatches(new Checksums("00", SHA1, "11")));
+    }
+
+    @Test
+    void shouldBeEmptyWithoutChecksums() {
+        assertTrue(Checksums.NONE.isEmpty());
+        assertTrue(new Checksums(null, null, null).isEmpty());
+        assertFalse(new Checksums(null, SHA1, null).isEmpty());
+    }
+
+    @Test
+    void shouldWriteSidecarsOfPresentChecksums() throws IOException {
+        File file = file("file.jar", "content");
+
+        new Checksums(MD5, null, SHA256).writeSidecars(file);
+
+        assertEquals(MD5, read(workDir.resolve("file.jar.md5")));
+        assertFalse(Files.exists(workDir.resolve("file.jar.sha1")));
+        assertEquals(SHA256, read(workDir.resolve("file.jar.sha256")));
+    }
+
+    private File file(String name, String content) throws IOException {
+        File file = workDir.resolve(name).toFile();
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+}
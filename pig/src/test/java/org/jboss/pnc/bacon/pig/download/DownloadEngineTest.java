@@ -0,0 +1,116 @@
+package org.jboss.pnc.bacon.pig.download;
+
+import org.jboss.pnc.bacon.pig.PigException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DownloadEngineTest {
+
+    @Test
+    void shouldServeHostsInRoundRobin() throws InterruptedException {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blocker = new CountDownLatch(1);
+        try (DownloadEngine engine = new DownloadEngine(1, 1)) {
+            List<CompletableFuture<Void>> results = new ArrayList<>();
+            results.add(engine.submit("blocking", "blocking", () -> await(blocker)));
+            for (String job : Arrays.asList("a1", "a2", "a3", "b1", "b2", "c1")) {
+                results.add(engine.submit(job.substring(0, 1), job, () -> order.add(job)));
+            }
+            blocker.countDown();
+            DownloadEngine.aggregate(results).join();
+        }
+
+        assertEquals(Arrays.asList("a1", "b1", "c1", "a2", "b2", "a3"), order);
+    }
+
+    @Test
+    void shouldLimitConcurrency() {
+        ConcurrencyTracker total = new ConcurrencyTracker();
+        ConcurrencyTracker hostA = new ConcurrencyTracker();
+        try (DownloadEngine engine = new DownloadEngine(3, 2)) {
+            List<CompletableFuture<Void>> results = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                boolean onA = i % 3 != 0;
+                results.add(engine.submit(onA ? "a" : "host" + i, "job" + i, () -> {
+                    total.enter();
+                    if (onA) {
+                        hostA.enter();
+                    }
+                    sleep();
+                    if (onA) {
+                        hostA.exit();
+                    }
+                    total.exit();
+                }));
+            }
+            DownloadEngine.aggregate(results).join();
+        }
+
+        assertEquals(3, total.max.get());
+        assertEquals(2, hostA.max.get());
+    }
+
+    @Test
+    void shouldAggregateFailures() {
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        try (DownloadEngine engine = new DownloadEngine(2, 2)) {
+            results.add(engine.submit("a", "ok", () -> {
+            }));
+            results.add(engine.submit("a", "failing", () -> {
+                throw new IllegalStateException("failed");
+            }));
+            results.add(engine.submit("b", "erroring", () -> {
+                throw new AssertionError("error");
+            }));
+
+            CompletionException exception =
+                    assertThrows(CompletionException.class, () -> DownloadEngine.aggregate(results).join());
+
+            assertTrue(exception.getCause() instanceof PigException);
+            assertEquals("2 out of 3 downloads failed", exception.getCause().getMessage());
+            assertEquals(2, exception.getCause().getSuppressed().length);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class ConcurrencyTracker {
+        private final AtomicInteger current = new AtomicInteger();
+        private final AtomicInteger max = new AtomicInteger();
+
+        void enter() {
+            max.accumulateAndGet(current.incrementAndGet(), Math::max);
+        }
+
+        void exit() {
+            current.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.jboss.pnc.bacon.pig.download;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DownloadMetricsTest {
+
+    @Test
+    void shouldNotCountDiscardedBytesTwice() {
+        DownloadMetrics metrics = new DownloadMetrics();
+        TransferMetrics transfer = metrics.start(URI.create("http://host/file.zip"));
+
+        transfer.transferred(100);
+        transfer.discardTransferred();
+        transfer.transferred(250);
+        transfer.finished();
+
+        assertEquals(250, transfer.getBytes());
+        assertEquals(250, metrics.getBytes());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldAggregateTransfersInTotalAndPerHost() {
+        DownloadMetrics metrics = new DownloadMetrics();
+        TransferMetrics first = metrics.start(URI.create("http://mirror-a/first.jar"));
+        first.firstByte();
+        first.transferred(1000);
+        first.retried();
+        first.finished();
+        TransferMetrics second = metrics.start(URI.create("http://mirror-a/second.jar"));
+        second.transferred(500);
+        second.finished();
+        TransferMetrics failed = metrics.start(URI.create("http://mirror-b/failed.jar"));
+        failed.transferred(10);
+        failed.failed(FailureType.HTTP);
+        metrics.start(URI.create("http://mirror-b/in-progress.jar"));
+        metrics.cacheHit();
+
+        Map<String, Object> summary = metrics.summary();
+
+        assertEquals(2, summary.get("files"));
+        assertEquals(1, summary.get("failed"));
+        assertEquals(1, summary.get("cacheHits"));
+        assertEquals(1, summary.get("retries"));
+        assertEquals(1510L, summary.get("bytes"));
+        assertEquals(1, metrics.getInProgress());
+
+        Map<String, Map<String, Object>> hosts = (Map<String, Map<String, Object>>) summary.get("hosts");
+        assertEquals(2, hosts.size());
+        assertEquals(2, hosts.get("mirror-a").get("files"));
+        assertEquals(0L, hosts.get("mirror-a").get("failed"));
+        assertEquals(1, hosts.get("mirror-a").get("retries"));
+        assertEquals(1500L, hosts.get("mirror-a").get("bytes"));
+        assertEquals(1, hosts.get("mirror-b").get("files"));
+        assertEquals(1L, hosts.get("mirror-b").get("failed"));
+        assertEquals(-1.0, hosts.get("mirror-b").get("averageTimeToFirstByteMillis"));
+
+        List<Map<String, Object>> slowest = (List<Map<String, Object>>) summary.get("slowest");
+        assertEquals(2, slowest.size());
+        assertTrue(slowest.stream().noneMatch(t -> t.get("url").toString().contains("failed")));
+
+        assertTrue(metrics.summaryAsJson().startsWith("{\"files\":2,\"failed\":1,"));
+    }
+}
@@ -0,0 +1,50 @@
+package org.jboss.pnc.bacon.pig.download;
+
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.URI;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.CertificateException;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FailureTypeTest {
+
+    @Test
+    void shouldClassifyHandshakeAndCertificateFailuresAsTls() {
+        assertEquals(FailureType.TLS, FailureType.of(new SSLHandshakeException("PKIX path building failed")));
+        assertEquals(FailureType.TLS, FailureType.of(new SSLPeerUnverifiedException("peer not authenticated")));
+        assertEquals(FailureType.TLS,
+                FailureType.of(new SSLException("failed", new CertPathValidatorException("expired"))));
+        assertEquals(FailureType.TLS,
+                FailureType.of(new IOException(new SSLException("failed", new CertificateException("bad")))));
+        assertEquals(FailureType.TLS,
+                FailureType.of(new CompletionException(new SSLHandshakeException("handshake failed"))));
+    }
+
+    @Test
+    void shouldClassifyOtherSslFailuresAsIo() {
+        assertEquals(FailureType.IO, FailureType.of(new SSLException("Connection reset")));
+        assertEquals(FailureType.IO,
+                FailureType.of(new SSLException("Connection reset", new SocketException("Connection reset"))));
+        assertEquals(FailureType.IO, FailureType.of(new SSLException("Tag mismatch!")));
+    }
+
+    @Test
+    void shouldClassifyStatusFailuresAsHttp() {
+        assertEquals(FailureType.HTTP,
+                FailureType.of(new IOException(new HttpStatusException(URI.create("http://host/file"), 404))));
+    }
+
+    @Test
+    void shouldClassifyOtherFailuresAsIo() {
+        assertEquals(FailureType.IO, FailureType.of(new SocketException("Connection reset")));
+        assertEquals(FailureType.IO, FailureType.of(new RuntimeException("unknown")));
+    }
+}
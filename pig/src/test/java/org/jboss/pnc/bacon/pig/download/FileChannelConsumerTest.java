@@ -0,0 +1,153 @@
+package org.jboss.pnc.bacon.pig.download;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.FileContentDecoder;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FileChannelConsumerTest {
+    private static final URI URL = URI.create("http://host/file.zip");
+
+    private Path workDir;
+    private File target;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workDir = Files.createTempDirectory("file-channel-consumer-test");
+        target = workDir.resolve("file.zip").toFile();
+        content = new byte[300_001];
+        new Random(42).nextBytes(content);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    @Test
+    void shouldWriteChunksReadThroughBuffer() throws Exception {
+        TransferMetrics transfer = new DownloadMetrics().start(URL);
+        FileChannelConsumer consumer = new FileChannelConsumer(URL, target, transfer);
+
+        consume(consumer, new ChunkedDecoder(content, 1000));
+
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals(Checksums.of(target), consumer.getResult());
+        assertEquals(content.length, transfer.getBytes());
+        assertFalse(new File(target.getPath() + ResumableDownload.PART_SUFFIX).exists());
+    }
+
+    @Test
+    void shouldWritePartialDirectTransfersAtTheRightPositions() throws Exception {
+        TransferMetrics transfer = new DownloadMetrics().start(URL);
+        FileChannelConsumer consumer = new FileChannelConsumer(URL, target, transfer);
+
+        consume(consumer, new DirectDecoder(content, 777));
+
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertNull(consumer.getResult(), "checksums have to be computed from the file after a direct transfer");
+        assertEquals(content.length, transfer.getBytes());
+    }
+
+    @Test
+    void shouldFailOnErrorStatus() {
+        FileChannelConsumer consumer = new FileChannelConsumer(URL, target, new DownloadMetrics().start(URL));
+
+        assertThrows(HttpStatusException.class,
+                () -> consumer.responseReceived(new BasicHttpResponse(HttpVersion.HTTP_1_1, 404, "Not Found")));
+    }
+
+    private static void consume(FileChannelConsumer consumer, ContentDecoder decoder) throws Exception {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new BasicHttpEntity());
+        consumer.responseReceived(response);
+        while (!decoder.isCompleted()) {
+            consumer.consumeContent(decoder, null);
+        }
+        consumer.responseCompleted(new BasicHttpContext());
+    }
+
+    /**
+     * returns the content in chunks, with no data available after every third chunk
+     */
+    private static class ChunkedDecoder implements ContentDecoder {
+        private final byte[] content;
+        private final int chunkSize;
+        private int position = 0;
+        private int reads = 0;
+
+        private ChunkedDecoder(byte[] content, int chunkSize) {
+            this.content = content;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (isCompleted()) {
+                return -1;
+            }
+            if (++reads % 4 == 0) {
+                return 0;
+            }
+            int length = Math.min(Math.min(chunkSize, dst.remaining()), content.length - position);
+            dst.put(content, position, length);
+            position += length;
+            return length;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return position == content.length;
+        }
+    }
+
+    /**
+     * transfers at most a chunk directly to the file on each call
+     */
+    private static class DirectDecoder extends ChunkedDecoder implements FileContentDecoder {
+        private final byte[] content;
+        private final int chunkSize;
+        private int position = 0;
+
+        private DirectDecoder(byte[] content, int chunkSize) {
+            super(content, chunkSize);
+            this.content = content;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public long transfer(FileChannel dst, long filePosition, long count) throws IOException {
+            int length = (int) Math.min(Math.min(chunkSize, count), content.length - position);
+            int written = dst.write(ByteBuffer.wrap(content, position, length), filePosition);
+            position += written;
+            return written;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return position == content.length;
+        }
+    }
+}
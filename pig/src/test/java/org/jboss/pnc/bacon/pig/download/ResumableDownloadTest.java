@@ -0,0 +1,236 @@
+package org.jboss.pnc.bacon.pig.download;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.apache.commons.io.FileUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ResumableDownloadTest {
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 13 Mar 2019 10:00:00 GMT";
+
+    private Path workDir;
+    private File target;
+    private File partFile;
+    private File validatorFile;
+    private byte[] content;
+    private CloseableHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workDir = Files.createTempDirectory("resumable-download-test");
+        target = workDir.resolve("file.zip").toFile();
+        partFile = new File(target.getPath() + ResumableDownload.PART_SUFFIX);
+        validatorFile = new File(target.getPath() + ".part.validator");
+        content = new byte[3000];
+        new Random(7).nextBytes(content);
+        client = HttpClients.createDefault();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    @Test
+    void shouldResumeWithRangeAndIfRange() throws IOException {
+        AtomicInteger requestNo = new AtomicInteger();
+        try (TestHttpServer server = new TestHttpServer(exchange -> {
+            exchange.getResponseHeaders().set("ETag", ETAG);
+            if (requestNo.incrementAndGet() == 1) {
+                TestHttpServer.send(exchange, 200, content, 0, 1000);
+            } else {
+                serveRange(exchange, ETAG);
+            }
+        })) {
+            ResumableDownload download = new ResumableDownload(server.uri("/file.zip"), target);
+
+            assertThrows(IOException.class, () -> download.attempt(client, transfer(server)));
+            assertEquals(1000, partFile.length());
+            assertEquals(ETAG, read(validatorFile));
+
+            Checksums checksums = download.attempt(client, transfer(server));
+
+            TestHttpServer.Request resumed = server.getRequests().get(1);
+            assertEquals("bytes=1000-", resumed.header("Range"));
+            assertEquals(ETAG, resumed.header("If-Range"));
+            assertDownloaded(content, checksums);
+        }
+    }
+
+    @Test
+    void shouldStartOverWhenFileChanged() throws IOException {
+        byte[] changed = Arrays.copyOf(content, 2500);
+        changed[0]++;
+        AtomicInteger requestNo = new AtomicInteger();
+        try (TestHttpServer server = new TestHttpServer(exchange -> {
+            if (requestNo.incrementAndGet() == 1) {
+                exchange.getResponseHeaders().set("ETag", ETAG);
+                TestHttpServer.send(exchange, 200, content, 0, 1000);
+            } else {
+                // the file changed, If-Range doesn't match, so the server sends all of it
+                exchange.getResponseHeaders().set("ETag", "\"v2\"");
+                TestHttpServer.send(exchange, 200, changed);
+            }
+        })) {
+            ResumableDownload download = new ResumableDownload(server.uri("/file.zip"), target);
+            assertThrows(IOException.class, () -> download.attempt(client, transfer(server)));
+
+            Checksums checksums = download.attempt(client, transfer(server));
+
+            assertDownloaded(changed, checksums);
+        }
+    }
+
+    @Test
+    void shouldUseLastModifiedIfEtagIsWeak() throws IOException {
+        AtomicInteger requestNo = new AtomicInteger();
+        try (TestHttpServer server = new TestHttpServer(exchange -> {
+            exchange.getResponseHeaders().set("ETag", "W/\"weak\"");
+            exchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+            if (requestNo.incrementAndGet() == 1) {
+                TestHttpServer.send(exchange, 200, content, 0, 1200);
+            } else {
+                serveRange(exchange, LAST_MODIFIED);
+            }
+        })) {
+            ResumableDownload download = new ResumableDownload(server.uri("/file.zip"), target);
+            assertThrows(IOException.class, () -> download.attempt(client, transfer(server)));
+            assertEquals(LAST_MODIFIED, read(validatorFile));
+
+            Checksums checksums = download.attempt(client, transfer(server));
+
+            assertEquals(LAST_MODIFIED, server.getRequests().get(1).header("If-Range"));
+            assertDownloaded(content, checksums);
+        }
+    }
+
+    @Test
+    void shouldNotResumeWithoutValidator() throws IOException {
+        AtomicInteger requestNo = new AtomicInteger();
+        try (TestHttpServer server = new TestHttpServer(exchange ->
+                TestHttpServer.send(exchange, 200, content, 0, requestNo.incrementAndGet() == 1 ? 1000 : content.length))) {
+            ResumableDownload download = new ResumableDownload(server.uri("/file.zip"), target);
+            assertThrows(IOException.class, () -> download.attempt(client, transfer(server)));
+            assertFalse(validatorFile.exists());
+
+            Checksums checksums = download.attempt(client, transfer(server));
+
+            assertNull(server.getRequests().get(1).header("Range"));
+            assertDownloaded(content, checksums);
+        }
+    }
+
+    @Test
+    void shouldStartOverAfterRangeNotSatisfiable() throws IOException {
+        writePart(1500, ETAG);
+        try (TestHttpServer server = new TestHttpServer(exchange -> {
+            if (exchange.getRequestHeaders().getFirst("Range") != null) {
+                exchange.sendResponseHeaders(416, -1);
+            } else {
+                TestHttpServer.send(exchange, 200, content);
+            }
+        })) {
+            ResumableDownload download = new ResumableDownload(server.uri("/file.zip"), target);
+
+            assertThrows(IOException.class, () -> download.attempt(client, transfer(server)));
+            assertFalse(partFile.exists());
+            assertFalse(validatorFile.exists());
+
+            Checksums checksums = download.attempt(client, transfer(server));
+
+            assertNull(server.getRequests().get(1).header("Range"));
+            assertDownloaded(content, checksums);
+        }
+    }
+
+    @Test
+    void shouldStartOverOnUnexpectedContentRange() throws IOException {
+        writePart(1000, ETAG);
+        try (TestHttpServer server = new TestHttpServer(exchange -> {
+            exchange.getResponseHeaders().set("Content-Range", "bytes 0-2999/3000");
+            TestHttpServer.send(exchange, 206, content);
+        })) {
+            ResumableDownload download = new ResumableDownload(server.uri("/file.zip"), target);
+
+            IOException error = assertThrows(IOException.class, () -> download.attempt(client, transfer(server)));
+
+            assertEquals("Unexpected content range for " + server.uri("/file.zip") + ": bytes 0-2999/3000, " +
+                    "the download will start over", error.getMessage());
+            assertFalse(partFile.exists());
+            assertFalse(validatorFile.exists());
+            assertFalse(target.exists());
+        }
+    }
+
+    @Test
+    void shouldKeepPartOnErrorStatus() throws IOException {
+        writePart(1000, ETAG);
+        try (TestHttpServer server = new TestHttpServer(exchange -> exchange.sendResponseHeaders(503, -1))) {
+            ResumableDownload download = new ResumableDownload(server.uri("/file.zip"), target);
+
+            HttpStatusException error =
+                    assertThrows(HttpStatusException.class, () -> download.attempt(client, transfer(server)));
+
+            assertEquals(503, error.getStatusCode());
+            assertEquals(1000, partFile.length());
+            assertEquals(ETAG, read(validatorFile));
+        }
+    }
+
+    /**
+     * serves the requested range if If-Range matches the current validator
+     */
+    private void serveRange(HttpExchange exchange, String validator) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range == null || !validator.equals(exchange.getRequestHeaders().getFirst("If-Range"))) {
+            TestHttpServer.send(exchange, 200, content);
+            return;
+        }
+        int from = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+        exchange.getResponseHeaders().set("Content-Range",
+                "bytes " + from + "-" + (content.length - 1) + "/" + content.length);
+        TestHttpServer.send(exchange, 206, content, from, content.length);
+    }
+
+    private void writePart(int length, String validator) throws IOException {
+        Files.write(partFile.toPath(), Arrays.copyOf(content, length));
+        Files.write(validatorFile.toPath(), validator.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void assertDownloaded(byte[] expected, Checksums checksums) throws IOException {
+        assertArrayEquals(expected, Files.readAllBytes(target.toPath()));
+        assertEquals(Checksums.of(target), checksums);
+        assertFalse(partFile.exists());
+        assertFalse(validatorFile.exists());
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static TransferMetrics transfer(TestHttpServer server) {
+        URI url = server.uri("/file.zip");
+        return new DownloadMetrics().start(url);
+    }
+}
@@ -0,0 +1,84 @@
+package org.jboss.pnc.bacon.pig.download;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RetryPolicyTest {
+
+    @Test
+    void shouldNotRetryReadTimeoutWithoutProgress() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(SocketTimeoutException.class, () -> new RetryPolicy(4, 0).execute("test", () -> 100L, () -> {
+            attempts.incrementAndGet();
+            throw new SocketTimeoutException("Read timed out");
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void shouldRetryReadTimeoutAfterProgress() throws IOException {
+        AtomicLong bytesStored = new AtomicLong();
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = new RetryPolicy(4, 0).execute("test", bytesStored::get, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                bytesStored.addAndGet(1000);
+                throw new SocketTimeoutException("Read timed out");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void shouldRetryConnectTimeout() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = new RetryPolicy(4, 0).execute("test", () -> {
+            if (attempts.incrementAndGet() < 2) {
+                throw new ConnectTimeoutException("Connect timed out");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+    }
+
+    @Test
+    void shouldStopRetryingAfterTimeLimit() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IOException.class, () -> new RetryPolicy(10, 50, 120).execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new IOException("Connection reset");
+        }));
+
+        // attempt 1, 50 ms backoff, attempt 2, the next 100 ms backoff would exceed the limit
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void shouldNotRetryClientErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(HttpStatusException.class, () -> new RetryPolicy(4, 0).execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new HttpStatusException(URI.create("http://host/file"), 404);
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,174 @@
+package org.jboss.pnc.bacon.pig.download;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.apache.commons.io.FileUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SegmentedDownloadTest {
+    private static final String ETAG = "\"v1\"";
+
+    private Path workDir;
+    private File target;
+    private byte[] content;
+    private CloseableHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workDir = Files.createTempDirectory("segmented-download-test");
+        target = workDir.resolve("file.zip").toFile();
+        content = new byte[4000];
+        new Random(11).nextBytes(content);
+        client = HttpClients.createDefault();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    @Test
+    void shouldSplitIntoSegments() throws IOException {
+        try (TestHttpServer server = new TestHttpServer(exchange -> serveRange(exchange, Integer.MAX_VALUE))) {
+            SegmentedDownload download = download(server, 3, 1000);
+
+            assertTrue(download.isSupported());
+            Checksums checksums = download.download(new DownloadMetrics().start(server.uri("/file.zip")));
+
+            assertEquals(setOf("bytes=0-1332", "bytes=1333-2665", "bytes=2666-3999"), ranges(server));
+            for (TestHttpServer.Request request : server.getRequests("GET")) {
+                assertEquals(ETAG, request.header("If-Match"));
+            }
+            assertDownloaded(checksums);
+        }
+    }
+
+    @Test
+    void shouldNotSplitIntoSegmentsSmallerThanMinimum() throws IOException {
+        try (TestHttpServer server = new TestHttpServer(exchange -> serveRange(exchange, Integer.MAX_VALUE))) {
+            SegmentedDownload download = download(server, 8, 1500);
+
+            assertTrue(download.isSupported());
+            Checksums checksums = download.download(new DownloadMetrics().start(server.uri("/file.zip")));
+
+            assertEquals(setOf("bytes=0-1999", "bytes=2000-3999"), ranges(server));
+            assertDownloaded(checksums);
+        }
+    }
+
+    @Test
+    void shouldRetrySegmentFromWhereItStopped() throws IOException {
+        AtomicBoolean truncated = new AtomicBoolean();
+        try (TestHttpServer server = new TestHttpServer(exchange -> {
+            boolean secondSegment = "bytes=2000-3999".equals(exchange.getRequestHeaders().getFirst("Range"));
+            serveRange(exchange, secondSegment && truncated.compareAndSet(false, true) ? 500 : Integer.MAX_VALUE);
+        })) {
+            SegmentedDownload download = download(server, 2, 1000);
+            TransferMetrics transfer = new DownloadMetrics().start(server.uri("/file.zip"));
+
+            assertTrue(download.isSupported());
+            Checksums checksums = download.download(transfer);
+
+            assertEquals(setOf("bytes=0-1999", "bytes=2000-3999", "bytes=2500-3999"), ranges(server));
+            assertEquals(1, transfer.getRetries());
+            assertDownloaded(checksums);
+        }
+    }
+
+    @Test
+    void shouldFailWhenSegmentRetriesAreExhausted() throws IOException {
+        try (TestHttpServer server = new TestHttpServer(exchange -> {
+            boolean secondSegment = !"bytes=0-1999".equals(exchange.getRequestHeaders().getFirst("Range"));
+            serveRange(exchange, secondSegment ? 100 : Integer.MAX_VALUE);
+        })) {
+            SegmentedDownload download = download(server, 2, 1000);
+
+            assertTrue(download.isSupported());
+            assertThrows(IOException.class,
+                    () -> download.download(new DownloadMetrics().start(server.uri("/file.zip"))));
+
+            long secondSegmentAttempts = server.getRequests("GET").stream()
+                    .filter(request -> !"bytes=0-1999".equals(request.header("Range")))
+                    .count();
+            assertEquals(3, secondSegmentAttempts);
+            assertFalse(target.exists());
+            assertFalse(new File(target.getPath() + ResumableDownload.PART_SUFFIX).exists());
+        }
+    }
+
+    @Test
+    void shouldNotBeSupportedWithoutAcceptRanges() throws IOException {
+        try (TestHttpServer server = new TestHttpServer(exchange -> TestHttpServer.send(exchange, 200, content))) {
+            SegmentedDownload download = download(server, 2, 1000);
+
+            assertFalse(download.isSupported());
+            assertThrows(IllegalStateException.class,
+                    () -> download.download(new DownloadMetrics().start(server.uri("/file.zip"))));
+            assertTrue(server.getRequests("GET").isEmpty());
+        }
+    }
+
+    private SegmentedDownload download(TestHttpServer server, int maxSegments, long minSegmentSize) {
+        return new SegmentedDownload(client,
+                server.uri("/file.zip"),
+                target,
+                maxSegments,
+                minSegmentSize,
+                new RetryPolicy(3, 0));
+    }
+
+    /**
+     * serves the requested byte range, cut after {@code bytesToSend} bytes
+     */
+    private void serveRange(HttpExchange exchange, int bytesToSend) throws IOException {
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range == null) {
+            TestHttpServer.send(exchange, 200, content);
+            return;
+        }
+        String[] bounds = range.substring("bytes=".length()).split("-");
+        int from = Integer.parseInt(bounds[0]);
+        int to = Integer.parseInt(bounds[1]);
+        exchange.getResponseHeaders().set("Content-Range", "bytes " + from + "-" + to + "/" + content.length);
+        TestHttpServer.send(exchange, 206, Arrays.copyOfRange(content, from, to + 1), 0, bytesToSend);
+    }
+
+    private void assertDownloaded(Checksums checksums) throws IOException {
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals(Checksums.of(target), checksums);
+        assertFalse(new File(target.getPath() + ResumableDownload.PART_SUFFIX).exists());
+    }
+
+    private static Set<String> ranges(TestHttpServer server) {
+        return server.getRequests("GET").stream()
+                .map(request -> request.header("Range"))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static Set<String> setOf(String... values) {
+        return new TreeSet<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,103 @@
+package org.jboss.pnc.bacon.pig.download;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * local http server for download tests, records the requests it gets
+ */
+public class TestHttpServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
+
+    public TestHttpServer(HttpHandler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(new Request(exchange.getRequestMethod(), exchange.getRequestHeaders()));
+            try {
+                handler.handle(exchange);
+            } catch (IOException e) {
+                // e.g. a deliberately truncated response
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public URI uri(String path) {
+        return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path);
+    }
+
+    public List<Request> getRequests() {
+        synchronized (requests) {
+            return new ArrayList<>(requests);
+        }
+    }
+
+    public List<Request> getRequests(String method) {
+        List<Request> result = new ArrayList<>();
+        for (Request request : getRequests()) {
+            if (request.method.equals(method)) {
+                result.add(request);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sends the response declaring the full length of the content, but only {@code bytesToSend} bytes of it.
+     * A response cut short makes the client fail with a closed connection, like a dropped download.
+     */
+    public static void send(HttpExchange exchange, int status, byte[] content, int from, int bytesToSend) throws IOException {
+        int length = content.length - from;
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(length));
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+        OutputStream body = exchange.getResponseBody();
+        body.write(content, from, Math.min(bytesToSend, length));
+        body.flush();
+    }
+
+    public static void send(HttpExchange exchange, int status, byte[] content) throws IOException {
+        send(exchange, status, content, 0, content.length);
+    }
+
+    public static class Request {
+        public final String method;
+        final Headers headers;
+
+        private Request(String method, Headers headers) {
+            this.method = method;
+            this.headers = headers;
+        }
+
+        public String header(String name) {
+            return headers.getFirst(name);
+        }
+    }
+}
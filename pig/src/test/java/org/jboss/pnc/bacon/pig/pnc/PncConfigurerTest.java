@@ -0,0 +1,159 @@
+package org.jboss.pnc.bacon.pig.pnc;
+
+import org.jboss.pnc.bacon.pig.PigException;
+import org.jboss.pnc.bacon.pig.config.build.BuildConfig;
+import org.jboss.pnc.bacon.pig.config.build.Config;
+import org.jboss.pnc.dto.BuildConfiguration;
+import org.jboss.pnc.dto.Project;
+import org.jboss.pnc.dto.SCMRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PncConfigurerTest {
+
+    @Test
+    void shouldImportDependenciesFirst() {
+        List<BuildConfig> builds = Arrays.asList(
+                build("app", "lib", "tools"),
+                build("lib", "parent"),
+                build("tools", "parent"),
+                build("parent"),
+                build("standalone")
+        );
+        StubDao dao = new StubDao(builds);
+
+        List<BuildConfigData> imported = new PncConfigurer(new Config(), dao).updateOrCreate(new ArrayList<>(), builds);
+
+        assertEquals(Arrays.asList("app", "lib", "tools", "parent", "standalone"),
+                imported.stream().map(BuildConfigData::getName).collect(toList()));
+        assertEquals(5, dao.created.size());
+        assertTrue(dao.orderViolations.isEmpty(), "created before their dependencies: " + dao.orderViolations);
+    }
+
+    @Test
+    void shouldLookUpSharedProjectAndRepositoryOnce() {
+        List<BuildConfig> builds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            builds.add(build("build" + i));
+        }
+        StubDao dao = new StubDao(builds);
+
+        new PncConfigurer(new Config(), dao).updateOrCreate(new ArrayList<>(), builds);
+
+        assertEquals(1, dao.projectLookups.get());
+        assertEquals(1, dao.repositoryLookups.get());
+        assertEquals(20, dao.created.size());
+    }
+
+    @Test
+    void shouldSkipDependentsOfFailedConfigsAndAggregateErrors() {
+        List<BuildConfig> builds = Arrays.asList(
+                build("parent"),
+                build("lib", "parent"),
+                build("app", "lib"),
+                build("standalone")
+        );
+        StubDao dao = new StubDao(builds);
+        dao.failing.add("parent");
+
+        PigException error = assertThrows(PigException.class,
+                () -> new PncConfigurer(new Config(), dao).updateOrCreate(new ArrayList<>(), builds));
+
+        assertEquals("3 out of 4 build configurations failed to be imported", error.getMessage());
+        assertEquals(Arrays.asList(
+                "failed to create parent",
+                "Build config lib was not imported because its dependency parent failed to be imported",
+                "Build config app was not imported because its dependency lib failed to be imported"
+        ), Arrays.stream(error.getSuppressed()).map(Throwable::getMessage).collect(toList()));
+        assertEquals(Collections.singleton("standalone"), dao.created);
+    }
+
+    private static BuildConfig build(String name, String... dependencies) {
+        BuildConfig build = new BuildConfig();
+        build.setName(name);
+        build.setProject("project");
+        build.setBuildScript("mvn deploy");
+        build.setScmUrl("git+ssh://git.example.com/org/repo.git");
+        build.setDependencies(new ArrayList<>(Arrays.asList(dependencies)));
+        return build;
+    }
+
+    private static class StubDao extends PncRestDao {
+        private final List<BuildConfig> builds;
+        private final Set<String> created = ConcurrentHashMap.newKeySet();
+        private final Set<String> failing = new HashSet<>();
+        private final List<String> orderViolations = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger projectLookups = new AtomicInteger();
+        private final AtomicInteger repositoryLookups = new AtomicInteger();
+        private final AtomicInteger ids = new AtomicInteger();
+
+        private StubDao(List<BuildConfig> builds) {
+            this.builds = builds;
+        }
+
+        @Override
+        public Optional<BuildConfiguration> getBuildConfigByName(String name) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<Project> getProjectByName(String name) {
+            projectLookups.incrementAndGet();
+            sleep();
+            return Optional.of(Project.builder().id(1).name(name).build());
+        }
+
+        @Override
+        public Optional<SCMRepository> getRepositoryConfigurationByScmUri(String shortScmURIPath) {
+            return Optional.of(SCMRepository.builder().id(2).build());
+        }
+
+        @Override
+        public Optional<SCMRepository> getRepositoryConfigurationForBuildConfigByScmUri(String shortScmURIPath) {
+            repositoryLookups.incrementAndGet();
+            sleep();
+            return Optional.of(SCMRepository.builder().id(2).build());
+        }
+
+        @Override
+        public BuildConfiguration createBuildConfiguration(BuildConfiguration config) {
+            String name = config.getName();
+            sleep();
+            if (failing.contains(name)) {
+                throw new PigException("failed to create " + name);
+            }
+            Set<String> dependencies = builds.stream()
+                    .filter(b -> b.getName().equals(name))
+                    .flatMap(b -> b.getDependencies().stream())
+                    .collect(toSet());
+            if (!created.containsAll(dependencies)) {
+                orderViolations.add(name);
+            }
+            created.add(name);
+            return BuildConfiguration.builder().id(ids.incrementAndGet()).name(name).build();
+        }
+
+        private static void sleep() {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.jboss.pnc.bacon.pig.repo;
+
+import org.apache.commons.io.FileUtils;
+import org.jboss.pnc.bacon.pig.PigException;
+import org.jboss.pnc.bacon.pig.data.GAV;
+import org.jboss.pnc.bacon.pig.data.RepositoryData;
+import org.jboss.pnc.bacon.pig.download.Checksums;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RepositoryZipStreamerTest {
+    private static final URI URL = URI.create("http://host/product-repository.zip");
+
+    private Path workDir;
+    private Path extractTo;
+    private File repackTo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workDir = Files.createTempDirectory("repository-zip-streamer-test");
+        extractTo = workDir.resolve("extracted");
+        repackTo = workDir.resolve("repacked.zip").toFile();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    @Test
+    void shouldCollectGavsOfArtifacts() throws IOException {
+        byte[] zip = zip("product-1.0/",
+                "product-1.0/maven-repository/",
+                "product-1.0/maven-repository/org/foo/bar/1.0/bar-1.0.jar",
+                "product-1.0/maven-repository/org/foo/bar/1.0/bar-1.0.jar.sha1",
+                "product-1.0/maven-repository/org/foo/bar/1.0/bar-1.0.jar.md5",
+                "product-1.0/maven-repository/org/foo/bar/1.0/bar-1.0.pom",
+                "product-1.0/maven-repository/org/foo/bar/1.0/bar-1.0.pom.asc",
+                "product-1.0/maven-repository/org/foo/bar/maven-metadata.xml",
+                "product-1.0/maven-repository/org/foo/baz/2.0/baz-2.0-sources.jar",
+                "product-1.0/example-settings.xml");
+
+        RepositoryData result = streamer().process(URL, new ByteArrayInputStream(zip), Checksums.NONE);
+
+        List<String> gavs = result.getGavs().stream().map(GAV::toGapvc).sorted().collect(Collectors.toList());
+        assertEquals(Arrays.asList(
+                new GAV("org.foo", "bar", "1.0", "jar").toGapvc(),
+                new GAV("org.foo", "bar", "1.0", "pom").toGapvc(),
+                new GAV("org.foo", "baz", "2.0", "jar", "sources").toGapvc()), gavs);
+        assertEquals(extractTo.resolve("product-1.0/maven-repository/"), result.getRepositoryPath());
+        assertEquals(8, result.getFiles().size());
+        assertEquals("content of product-1.0/example-settings.xml",
+                read(extractTo.resolve("product-1.0/example-settings.xml")));
+    }
+
+    @Test
+    void shouldRepackUnderNewTopLevelDirectory() throws IOException {
+        byte[] zip = zip("product-1.0/",
+                "product-1.0/maven-repository/org/foo/bar/1.0/bar-1.0.jar",
+                "product-1.0/example-settings.xml");
+
+        new RepositoryZipStreamer(null, repackTo, "product-1.0.0.GA")
+                .process(URL, new ByteArrayInputStream(zip), Checksums.NONE);
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream repacked = new ZipInputStream(new FileInputStream(repackTo))) {
+            ZipEntry entry;
+            while ((entry = repacked.getNextEntry()) != null) {
+                names.add(entry.getName());
+            }
+        }
+        assertEquals(Arrays.asList("product-1.0.0.GA/",
+                "product-1.0.0.GA/maven-repository/org/foo/bar/1.0/bar-1.0.jar",
+                "product-1.0.0.GA/example-settings.xml"), names);
+        assertFalse(Files.exists(extractTo));
+    }
+
+    @Test
+    void shouldRejectEntriesOutsideOfTargetDirectory() throws IOException {
+        byte[] zip = zip("product-1.0/", "product-1.0/../../escaped.txt");
+
+        PigException error = assertThrows(PigException.class,
+                () -> streamer().process(URL, new ByteArrayInputStream(zip), Checksums.NONE));
+
+        assertEquals("Zip entry product-1.0/../../escaped.txt points outside of the target directory",
+                error.getMessage());
+        assertFalse(Files.exists(workDir.resolve("escaped.txt")));
+    }
+
+    @Test
+    void shouldVerifyChecksumsOfWholeZip() throws IOException {
+        byte[] zip = zip("product-1.0/", "product-1.0/maven-repository/org/foo/bar/1.0/bar-1.0.jar");
+        Path zipFile = Files.write(workDir.resolve("source.zip"), zip);
+        Checksums actual = Checksums.of(zipFile.toFile());
+
+        streamer().process(URL, new ByteArrayInputStream(zip), actual);
+
+        PigException error = assertThrows(PigException.class,
+                () -> streamer().process(URL, new ByteArrayInputStream(zip), new Checksums(null, null, "00")));
+        assertEquals("Checksum mismatch for " + URL + ": sha256: expected 00, got " + actual.getSha256(),
+                error.getMessage());
+    }
+
+    private RepositoryZipStreamer streamer() {
+        return new RepositoryZipStreamer(extractTo, repackTo, null);
+    }
+
+    /**
+     * zip of the given entries, names ending with a slash are directories,
+     * the content of a file is "content of " followed by its name
+     */
+    private static byte[] zip(String... names) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(result)) {
+            for (String name : names) {
+                zip.putNextEntry(new ZipEntry(name));
+                if (!name.endsWith("/")) {
+                    zip.write(("content of " + name).getBytes(StandardCharsets.UTF_8));
+                }
+                zip.closeEntry();
+            }
+        }
+        return result.toByteArray();
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+}